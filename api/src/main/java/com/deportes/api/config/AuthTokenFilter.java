@@ -1,7 +1,9 @@
 package com.deportes.api.config;
 
 
+import com.deportes.api.entity.Usuario;
 import com.deportes.api.service.CustomUserDetailsService;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -37,16 +39,19 @@ public class AuthTokenFilter extends OncePerRequestFilter {
                                     @NonNull FilterChain filterChain) throws IOException, ServletException {
         String token = getTokenFromRequest(request);
         String path = request.getRequestURI();
-        log.info("Request path: {}", path);
-        log.info("Token: {}", token);
-        if (StringUtils.hasText(token) && jwtTokenProvider.validateToken(token)) {
-            String username = jwtTokenProvider.getUsername(token);
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-            if (userDetails != null) {
+        log.debug("Request path: {}", path);
+        if (StringUtils.hasText(token)) {
+            Claims claims = jwtTokenProvider.verify(token);
+            AuthUser principal = jwtTokenProvider.toAuthUser(claims);
+            if (principal == null) {
+                // Token anterior a los claims de usuario: se resuelve contra la base de datos
+                principal = loadLegacyPrincipal(claims.getSubject());
+            }
+            if (principal != null) {
                 UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(
-                        userDetails,
+                        principal,
                         null,
-                        userDetails.getAuthorities()
+                        principal.authorities()
                 );
                 authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authenticationToken);
@@ -55,6 +60,14 @@ public class AuthTokenFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    private AuthUser loadLegacyPrincipal(String username) {
+        UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+        if (userDetails instanceof Usuario usuario) {
+            return new AuthUser(usuario.getId(), usuario.getEmail(), usuario.getAuthorities());
+        }
+        return null;
+    }
+
     private String getTokenFromRequest(HttpServletRequest request) {
         String bearerToken = request.getHeader("Authorization");
 
@@ -0,0 +1,16 @@
+package com.deportes.api.config;
+
+import org.springframework.security.core.AuthenticatedPrincipal;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Collection;
+
+// Principal construido a partir de los claims del JWT, sin consultar la base de datos
+public record AuthUser(Long id, String email, Collection<? extends GrantedAuthority> authorities)
+        implements AuthenticatedPrincipal {
+
+    @Override
+    public String getName() {
+        return email;
+    }
+}
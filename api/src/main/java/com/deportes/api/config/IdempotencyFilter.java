@@ -0,0 +1,162 @@
+package com.deportes.api.config;
+
+import com.deportes.api.records.ResponseBody;
+import com.deportes.api.records.RespuestaIdempotente;
+import com.deportes.api.service.IdempotenciaService;
+import com.deportes.api.service.IdempotenciaService.Reserva;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Escrituras del carrito y checkout con cabecera Idempotency-Key: la primera petición se procesa
+// y su respuesta se guarda; las repeticiones con la misma clave reciben la respuesta guardada sin
+// volver a ejecutar nada. Una repetición que llega mientras la original sigue en proceso recibe 409
+@Component
+@RequiredArgsConstructor
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    static final String HEADER = "Idempotency-Key";
+    static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    private static final int MAX_KEY_LENGTH = 64;
+    private static final int MAX_BODY_BYTES = 256 * 1024;
+    private static final Set<String> METHODS = Set.of("POST", "PUT", "PATCH", "DELETE");
+
+    private final IdempotenciaService idempotenciaService;
+    private final ObjectMapper objectMapper;
+
+    // Claves en proceso en esta instancia, evita ir a la base para duplicados simultáneos
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return request.getHeader(HEADER) == null
+                || !METHODS.contains(request.getMethod())
+                || !request.getRequestURI().startsWith("/shopping-cart");
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request,
+                                    @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws IOException, ServletException {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !(authentication.getPrincipal() instanceof AuthUser authUser)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        String key = request.getHeader(HEADER).trim();
+        if (key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+            reject(response, HttpStatus.BAD_REQUEST, "La cabecera Idempotency-Key debe tener entre 1 y 64 caracteres");
+            return;
+        }
+
+        // El cuerpo se lee antes de reservar la clave porque forma parte de la huella; como máximo un byte
+        // más del límite, igual que en RateLimitFilter
+        if (request.getContentLengthLong() > MAX_BODY_BYTES) {
+            reject(response, HttpStatus.PAYLOAD_TOO_LARGE, "El cuerpo de la petición es demasiado grande");
+            return;
+        }
+        byte[] body = request.getInputStream().readNBytes(MAX_BODY_BYTES + 1);
+        if (body.length > MAX_BODY_BYTES) {
+            reject(response, HttpStatus.PAYLOAD_TOO_LARGE, "El cuerpo de la petición es demasiado grande");
+            return;
+        }
+        String peticion = huella(request, body);
+        String inFlightKey = authUser.id() + ":" + key;
+
+        if (!inFlight.add(inFlightKey)) {
+            reject(response, HttpStatus.CONFLICT, "Ya hay una petición en proceso con esta Idempotency-Key");
+            return;
+        }
+        try {
+            Reserva reserva = idempotenciaService.reservar(authUser.id(), key, peticion);
+            switch (reserva.estado()) {
+                case EN_CURSO -> reject(response, HttpStatus.CONFLICT, "Ya hay una petición en proceso con esta Idempotency-Key");
+                case COMPLETADA -> replay(reserva.respuesta(), peticion, response);
+                case RESERVADA -> process(new CachedBodyRequest(request, body), response, filterChain, authUser.id(), key, peticion);
+            }
+        } finally {
+            inFlight.remove(inFlightKey);
+        }
+    }
+
+    private void process(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain,
+                         Long usuarioId, String key, String peticion) throws IOException, ServletException {
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        boolean completed = false;
+        try {
+            filterChain.doFilter(request, wrapper);
+            if (wrapper.getStatus() >= 200 && wrapper.getStatus() < 300) {
+                idempotenciaService.completar(usuarioId, key, new RespuestaIdempotente(peticion, wrapper.getStatus(),
+                        wrapper.getContentType(), wrapper.getHeader(HttpHeaders.LOCATION),
+                        new String(wrapper.getContentAsByteArray(), StandardCharsets.UTF_8)));
+                completed = true;
+            }
+        } finally {
+            if (!completed) {
+                idempotenciaService.liberar(usuarioId, key);
+            }
+            wrapper.copyBodyToResponse();
+        }
+    }
+
+    private void replay(RespuestaIdempotente respuesta, String peticion, HttpServletResponse response) throws IOException {
+        if (!respuesta.peticion().equals(peticion)) {
+            reject(response, HttpStatus.UNPROCESSABLE_ENTITY, "La Idempotency-Key ya se usó en otra operación");
+            return;
+        }
+        response.setStatus(respuesta.estado());
+        response.setHeader(REPLAYED_HEADER, "true");
+        if (respuesta.location() != null) {
+            response.setHeader(HttpHeaders.LOCATION, respuesta.location());
+        }
+        if (respuesta.contentType() != null) {
+            response.setContentType(respuesta.contentType());
+        }
+        if (respuesta.cuerpo() != null) {
+            response.getOutputStream().write(respuesta.cuerpo().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    // Método, ruta y un hash de la query y el cuerpo: repetir la clave con otros parámetros o con otro
+    // cuerpo es otra operación y no recibe la respuesta guardada. El hash mantiene la huella de largo fijo
+    private static String huella(HttpServletRequest request, byte[] body) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            String query = request.getQueryString();
+            digest.update((query == null ? "" : query).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(body);
+            return request.getMethod() + " " + request.getRequestURI() + " "
+                    + Base64.getUrlEncoder().withoutPadding().encodeToString(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void reject(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), new ResponseBody<>(message, null));
+    }
+}
@@ -3,71 +3,185 @@ package com.deportes.api.config;
 
 import com.deportes.api.entity.Usuario;
 import com.deportes.api.repository.UsuarioRepository;
-import com.deportes.api.service.UserService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.LocatorAdapter;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDate;
 import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Component
 public class JwtProvider {
 
+    static final String CLAIM_USER_ID = "uid";
+    static final String CLAIM_ROLES = "roles";
+    static final String ROLE_ADMIN = "ADMIN";
+
     @Value("${app.jwt.secret}")
     private String jwtSecret;
 
+    // Identificador de la clave activa, se envía en la cabecera kid de cada token
+    @Value("${app.jwt.kid}")
+    private String activeKid;
+
+    // Claves anteriores aún válidas para verificar, formato kid:secreto separados por coma
+    @Value("${app.jwt.retired-keys:}")
+    private List<String> retiredKeys;
+
+    @Value("${app.jwt.cache-size}")
+    private Integer cacheSize;
+
     @Autowired
     private UsuarioRepository usuarioRepository;
 
     @Value("${app.jwt.expiration}")
     private Long jwtExpirationDate;
 
+    // Usuarios que reciben el rol ADMIN en su token
+    @Value("${app.admin.emails:}")
+    private Set<String> adminEmails;
+
+    private SecretKey signingKey;
+    private JwtParser parser;
+    private LruCache<String, Claims> verifiedTokens;
+
+    @PostConstruct
+    void init() {
+        Map<String, SecretKey> keyRing = new HashMap<>();
+        for (String entry : retiredKeys) {
+            if (!StringUtils.hasText(entry)) {
+                continue;
+            }
+            int separator = entry.indexOf(':');
+            if (separator <= 0) {
+                throw new IllegalStateException("Formato de clave JWT inválido, se esperaba kid:secreto");
+            }
+            keyRing.put(entry.substring(0, separator).trim(), decodeKey(entry.substring(separator + 1).trim()));
+        }
+        signingKey = decodeKey(jwtSecret);
+        keyRing.put(activeKid, signingKey);
+
+        Map<String, SecretKey> keys = Map.copyOf(keyRing);
+        parser = Jwts.parser()
+                .keyLocator(new LocatorAdapter<Key>() {
+                    @Override
+                    protected Key locate(JwsHeader header) {
+                        // Los tokens sin kid se emitieron antes del anillo de claves y usan la clave activa
+                        String kid = header.getKeyId();
+                        Key key = kid == null ? signingKey : keys.get(kid);
+                        if (key == null) {
+                            throw new JwtException("Clave de firma desconocida: " + kid);
+                        }
+                        return key;
+                    }
+                })
+                .build();
+        verifiedTokens = new LruCache<>(cacheSize);
+    }
+
     public String generateToken(Authentication authentication) {
         Usuario user = null;
-        if (authentication.getPrincipal() instanceof UserDetails userDetails) {
+        if (authentication.getPrincipal() instanceof Usuario usuario) {
+            user = usuario;
+        } else if (authentication.getPrincipal() instanceof UserDetails userDetails) {
             user = usuarioRepository.findByEmail(userDetails.getUsername()).orElse(null);
         }
+        return generateToken(user);
+    }
 
+    public String generateToken(Usuario user) {
         LocalDate currentDate = LocalDate.now();
         LocalDate expireDate = currentDate.plusWeeks(jwtExpirationDate);
 
-        return Jwts.builder()
+        var builder = Jwts.builder()
+                .header().keyId(activeKid).and()
                 .subject(user == null ? "none" : user.getEmail())
                 .issuedAt(new Date())
-                .expiration(Date.from(expireDate.atStartOfDay(ZoneId.systemDefault()).toInstant()))
-                .signWith(key())
-                .compact();
+                .expiration(Date.from(expireDate.atStartOfDay(ZoneId.systemDefault()).toInstant()));
+        if (user != null) {
+            List<String> roles = new ArrayList<>(user.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList());
+            if (adminEmails.contains(user.getEmail())) {
+                roles.add(ROLE_ADMIN);
+            }
+            builder.claim(CLAIM_USER_ID, user.getId())
+                    .claim(CLAIM_ROLES, roles);
+        }
+        return builder.signWith(signingKey).compact();
     }
 
-    private Key key() {
-        return Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
+    // Verifica la firma una sola vez por token; las siguientes peticiones con el mismo token salen de la cache
+    public Claims verify(String token) {
+        String hash = hash(token);
+        Claims claims = verifiedTokens.get(hash);
+        if (claims != null) {
+            return claims;
+        }
+        claims = parser.parseSignedClaims(token).getPayload();
+        Date expiration = claims.getExpiration();
+        if (expiration != null) {
+            verifiedTokens.put(hash, claims, expiration.getTime());
+        }
+        return claims;
     }
 
     public String getUsername(String token) {
-
-        return Jwts.parser()
-                .verifyWith((SecretKey) key())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload()
-                .getSubject();
+        return verify(token).getSubject();
     }
 
     public boolean validateToken(String token) {
-        Jwts.parser()
-                .verifyWith((SecretKey) key())
-                .build()
-                .parse(token);
+        verify(token);
         return true;
+    }
 
+    // Devuelve null para tokens emitidos antes de incluir el id del usuario en los claims
+    public AuthUser toAuthUser(Claims claims) {
+        Long id = claims.get(CLAIM_USER_ID, Long.class);
+        if (id == null) {
+            return null;
+        }
+        List<?> roles = claims.get(CLAIM_ROLES, List.class);
+        List<GrantedAuthority> authorities = roles == null
+                ? List.of()
+                : roles.stream().map(role -> (GrantedAuthority) new SimpleGrantedAuthority(role.toString())).toList();
+        return new AuthUser(id, claims.getSubject(), authorities);
+    }
+
+    private static SecretKey decodeKey(String secret) {
+        return Keys.hmacShaKeyFor(Decoders.BASE64.decode(secret));
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,89 @@
+package com.deportes.api.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Números de orden ORD-yyyymmdd-XXXXXXXX ordenados en el tiempo, al estilo Snowflake.
+// Los 8 caracteres son 40 bits en base32 de Crockford: 27 bits de milisegundo del día, 5 del nodo
+// y 8 de secuencia, así que cada nodo genera hasta 256 números por milisegundo sin repetir.
+// El estado (milisegundo << 8 | secuencia) avanza con CAS; si la secuencia se agota o el reloj
+// retrocede se toma el milisegundo siguiente, de modo que los números nunca decrecen
+@Component
+public class NumeroOrdenGenerator {
+
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final int NODE_BITS = 5;
+    private static final int SEQUENCE_BITS = 8;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final int CODE_LENGTH = 8;
+
+    private final long node;
+    private final ZoneId zone;
+    private final AtomicLong state = new AtomicLong();
+    private volatile Day day;
+
+    public NumeroOrdenGenerator(@Value("${app.orders.node-id}") int node) {
+        if (node < 0 || node >= 1 << NODE_BITS) {
+            throw new IllegalStateException("app.orders.node-id debe estar entre 0 y " + ((1 << NODE_BITS) - 1));
+        }
+        this.node = node;
+        this.zone = ZoneId.systemDefault();
+        this.day = Day.of(System.currentTimeMillis(), zone);
+    }
+
+    public String next() {
+        long now = System.currentTimeMillis();
+        long previous;
+        long next;
+        do {
+            previous = state.get();
+            long previousMillis = previous >>> SEQUENCE_BITS;
+            if (now > previousMillis) {
+                next = now << SEQUENCE_BITS;
+            } else if ((previous & SEQUENCE_MASK) == SEQUENCE_MASK) {
+                next = (previousMillis + 1) << SEQUENCE_BITS;
+            } else {
+                next = previous + 1;
+            }
+        } while (!state.compareAndSet(previous, next));
+
+        long millis = next >>> SEQUENCE_BITS;
+        Day current = day;
+        if (millis < current.start() || millis >= current.end()) {
+            current = Day.of(millis, zone);
+            day = current;
+        }
+
+        long value = ((millis - current.start()) << (NODE_BITS + SEQUENCE_BITS))
+                | (node << SEQUENCE_BITS)
+                | (next & SEQUENCE_MASK);
+
+        char[] prefix = current.prefix();
+        char[] chars = new char[prefix.length + CODE_LENGTH];
+        System.arraycopy(prefix, 0, chars, 0, prefix.length);
+        for (int i = chars.length - 1; i >= prefix.length; i--) {
+            chars[i] = ALPHABET[(int) (value & 31)];
+            value >>>= 5;
+        }
+        return new String(chars);
+    }
+
+    // Límites del día en milisegundos y el prefijo ya armado, se recalcula solo al cambiar de día
+    private record Day(long start, long end, char[] prefix) {
+
+        static Day of(long millis, ZoneId zone) {
+            LocalDate date = Instant.ofEpochMilli(millis).atZone(zone).toLocalDate();
+            ZonedDateTime start = date.atStartOfDay(zone);
+            String prefix = "ORD-" + (date.getYear() * 10000 + date.getMonthValue() * 100 + date.getDayOfMonth()) + "-";
+            return new Day(start.toInstant().toEpochMilli(),
+                    start.plusDays(1).toInstant().toEpochMilli(),
+                    prefix.toCharArray());
+        }
+    }
+}
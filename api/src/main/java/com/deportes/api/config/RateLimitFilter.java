@@ -0,0 +1,110 @@
+package com.deportes.api.config;
+
+import com.deportes.api.records.ResponseBody;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+@Component
+@Slf4j
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final Set<String> LIMITED_PATHS = Set.of("/open/login", "/open/register");
+    private static final int MAX_BODY_BYTES = 8 * 1024;
+    private static final String NO_EMAIL_KEY = "";
+
+    private final RateLimiter ipLimiter;
+    private final RateLimiter emailLimiter;
+    private final ObjectMapper objectMapper;
+
+    public RateLimitFilter(@Value("${app.rate-limit.ip.capacity}") Integer ipCapacity,
+                           @Value("${app.rate-limit.ip.per-minute}") Integer ipPerMinute,
+                           @Value("${app.rate-limit.email.capacity}") Integer emailCapacity,
+                           @Value("${app.rate-limit.email.per-minute}") Integer emailPerMinute,
+                           ObjectMapper objectMapper) {
+        this.ipLimiter = new RateLimiter(ipCapacity, ipPerMinute);
+        this.emailLimiter = new RateLimiter(emailCapacity, emailPerMinute);
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !HttpMethod.POST.matches(request.getMethod()) || !LIMITED_PATHS.contains(request.getRequestURI());
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request,
+                                    @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws IOException, ServletException {
+        long wait = ipLimiter.tryAcquire(request.getRemoteAddr());
+        if (wait > 0) {
+            reject(response, wait);
+            return;
+        }
+
+        // Se lee como máximo un byte más del límite: un cuerpo mayor se rechaza sin llegar a guardarse entero
+        if (request.getContentLengthLong() > MAX_BODY_BYTES) {
+            rejectTooLarge(response);
+            return;
+        }
+        byte[] body = request.getInputStream().readNBytes(MAX_BODY_BYTES + 1);
+        if (body.length > MAX_BODY_BYTES) {
+            rejectTooLarge(response);
+            return;
+        }
+
+        // Los cuerpos sin email legible comparten un mismo cupo para que no esquiven el límite por email
+        String email = extractEmail(body);
+        wait = emailLimiter.tryAcquire(email == null ? NO_EMAIL_KEY : email);
+        if (wait > 0) {
+            reject(response, wait);
+            return;
+        }
+
+        filterChain.doFilter(new CachedBodyRequest(request, body), response);
+    }
+
+    private String extractEmail(byte[] body) {
+        try {
+            JsonNode email = objectMapper.readTree(body).path("email");
+            return email.isTextual() ? email.asText().trim().toLowerCase(Locale.ROOT) : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private void reject(HttpServletResponse response, long waitNanos) throws IOException {
+        long retryAfter = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+        log.warn("Rate limit exceeded, retry after {}s", retryAfter);
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(),
+                new ResponseBody<>("Demasiados intentos, intenta de nuevo más tarde", null));
+    }
+
+    private void rejectTooLarge(HttpServletResponse response) throws IOException {
+        log.warn("Rate limited request body over {} bytes rejected", MAX_BODY_BYTES);
+        response.setStatus(HttpStatus.PAYLOAD_TOO_LARGE.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(),
+                new ResponseBody<>("El cuerpo de la petición es demasiado grande", null));
+    }
+}
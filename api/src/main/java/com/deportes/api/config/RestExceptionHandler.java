@@ -1,8 +1,10 @@
 package com.deportes.api.config;
 
 import com.deportes.api.exception.CustomValidationException;
+import com.deportes.api.exception.TooManyRequestsException;
 import com.deportes.api.records.ResponseBody;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
@@ -16,6 +18,14 @@ import java.util.Map;
 @Slf4j
 public class RestExceptionHandler extends ResponseEntityExceptionHandler {
 
+    @ExceptionHandler(value = {TooManyRequestsException.class})
+    public ResponseEntity<ResponseBody<?>> handleTooManyRequests(TooManyRequestsException e) {
+        log.warn("Too many requests: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(new ResponseBody<>(e.getMessage(), null));
+    }
+
     @ExceptionHandler(value = {Exception.class})
     public ResponseEntity<ResponseBody<?>> handleException(Exception e) {
         if (e.getCause() instanceof CustomValidationException c) {
@@ -1,5 +1,6 @@
 package com.deportes.api.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -15,6 +16,7 @@ import org.springframework.security.config.annotation.web.configurers.AbstractHt
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.AuthorizationFilter;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
 
@@ -33,6 +35,12 @@ public class SecurityConfig {
     @Autowired
     private AuthTokenFilter authenticationFilter;
 
+    @Autowired
+    private RateLimitFilter rateLimitFilter;
+
+    @Autowired
+    private IdempotencyFilter idempotencyFilter;
+
     @Value("${app.cors.allowed-origins}")
     private String origins;
 
@@ -49,8 +57,11 @@ public class SecurityConfig {
     private Long maxAge;
 
     @Bean
-    public static PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public static PasswordEncoder passwordEncoder(@Value("${app.auth.hashing.threads}") Integer threads,
+                                                  @Value("${app.auth.hashing.queue-capacity}") Integer queueCapacity,
+                                                  @Value("${app.auth.hashing.timeout-ms}") Long timeoutMillis,
+                                                  MeterRegistry meterRegistry) {
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(), threads, queueCapacity, timeoutMillis, meterRegistry);
     }
 
     @Bean
@@ -58,7 +69,9 @@ public class SecurityConfig {
 
         http.csrf(AbstractHttpConfigurer::disable)
                 .authorizeHttpRequests((authorize) -> {
-                    authorize.requestMatchers("/open/**", "/actuator/**").permitAll();
+                    authorize.requestMatchers("/open/**", "/actuator/health").permitAll();
+                    // Las métricas exponen datos internos (caches, colas, hashing), solo para administradores
+                    authorize.requestMatchers("/actuator/**").hasAuthority(JwtProvider.ROLE_ADMIN);
                     authorize.requestMatchers(HttpMethod.OPTIONS, "/**").permitAll();
                     authorize.anyRequest().authenticated();
                 }).httpBasic(AbstractHttpConfigurer::disable);
@@ -71,12 +84,14 @@ public class SecurityConfig {
             configuration.setAllowedOrigins(List.of("*"));
             configuration.setAllowedMethods(List.of("*"));
             configuration.setAllowedHeaders(List.of("*"));
-            configuration.setExposedHeaders(List.of("Authorization"));
+            configuration.setExposedHeaders(List.of("Authorization", "Retry-After", "ETag", "Location", "Idempotent-Replayed"));
             configuration.setMaxAge(maxAge);
             return configuration;
         }));
 
         http.addFilterBefore(authenticationFilter, UsernamePasswordAuthenticationFilter.class);
+        http.addFilterBefore(rateLimitFilter, AuthTokenFilter.class);
+        http.addFilterAfter(idempotencyFilter, AuthorizationFilter.class);
 
         return http.build();
     }
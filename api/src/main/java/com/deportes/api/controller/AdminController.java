@@ -0,0 +1,72 @@
+package com.deportes.api.controller;
+
+import com.deportes.api.records.ResponseBody;
+import com.deportes.api.records.VentaProductoResponse;
+import com.deportes.api.service.OrdenExportService;
+import com.deportes.api.service.VentasService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@RestController
+@RequestMapping("/admin")
+@RequiredArgsConstructor
+@PreAuthorize("hasAuthority('ADMIN')")
+public class AdminController {
+    private final OrdenExportService ordenExportService;
+    private final VentasService ventasService;
+
+    @GetMapping("/sales/top")
+    public ResponseEntity<ResponseBody<List<VentaProductoResponse>>> getTopSelling(
+            @RequestParam(defaultValue = "10") Integer limit,
+            @RequestParam(defaultValue = "30") Integer days
+    ) {
+        return ResponseEntity.ok(new ResponseBody<>("Top selling products", ventasService.findTopVendidos(limit, days)));
+    }
+
+    @GetMapping("/sales/products/{productId}")
+    public ResponseEntity<ResponseBody<VentaProductoResponse>> getProductSales(@PathVariable Long productId) {
+        return ResponseEntity.ok(new ResponseBody<>("Product sales", ventasService.findTotalByProductoId(productId)));
+    }
+
+    // Reconstruye el acumulado diario desde items_orden, para la carga inicial o tras una corrección manual
+    @PostMapping("/sales/rebuild")
+    public ResponseEntity<ResponseBody<Integer>> rebuildSales() {
+        return ResponseEntity.ok(new ResponseBody<>("Sales rollup rebuilt", ventasService.reconstruir()));
+    }
+
+    // La respuesta se escribe por partes mientras se recorre el cursor, sin armar el archivo en memoria
+    @GetMapping("/orders/export")
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "csv") String format
+    ) {
+        OrdenExportService.Formato formato = "ndjson".equalsIgnoreCase(format)
+                ? OrdenExportService.Formato.NDJSON
+                : OrdenExportService.Formato.CSV;
+        MediaType mediaType = formato == OrdenExportService.Formato.NDJSON
+                ? MediaType.APPLICATION_NDJSON
+                : new MediaType("text", "csv");
+        String filename = "ordenes." + (formato == OrdenExportService.Formato.NDJSON ? "ndjson" : "csv");
+
+        StreamingResponseBody body = out -> ordenExportService.exportar(from, to, formato, out);
+        return ResponseEntity.ok()
+                .contentType(mediaType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .body(body);
+    }
+}
@@ -1,26 +1,32 @@
 package com.deportes.api.controller;
 
-import com.deportes.api.entity.Carrito;
-import com.deportes.api.entity.ItemCarrito;
 import com.deportes.api.entity.Orden;
-import com.deportes.api.entity.Producto;
-import com.deportes.api.entity.Usuario;
+import com.deportes.api.records.CartOperation;
+import com.deportes.api.records.CheckoutStatus;
+import com.deportes.api.records.ItemCarritoResponse;
+import com.deportes.api.records.OrdenResponse;
 import com.deportes.api.records.ResponseBody;
 import com.deportes.api.service.CarritoService;
+import com.deportes.api.service.CheckoutQueueService;
 import com.deportes.api.service.OrdenService;
 import com.deportes.api.service.ProductoService;
 import com.deportes.api.service.UserService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import java.math.BigDecimal;
+import java.net.URI;
 import java.util.List;
 
 @RestController
@@ -31,13 +37,14 @@ public class CarritoController {
     private final OrdenService ordenService;
     private final ProductoService productoService;
     private final UserService usuarioService;
+    private final CheckoutQueueService checkoutQueueService;
 
     @PostMapping("/add-product/{productId}")
     public ResponseEntity<ResponseBody<?>> addProductToCart(
             @PathVariable Long productId,
             @RequestParam(name = "quantity", required = false, defaultValue = "1") Integer quantity
     ) {
-        carritoService.agregarProductoAlCarrito(usuarioService.getMe().getId(), productId, quantity);
+        carritoService.agregarProductoAlCarrito(usuarioService.getMeId(), productId, quantity);
         return ResponseEntity.ok(new ResponseBody<>("Product added to cart", null));
     }
 
@@ -45,8 +52,8 @@ public class CarritoController {
     public ResponseEntity<ResponseBody<?>> removeProductFromCart(
             @PathVariable Long productId
     ) {
-        Usuario usuario = usuarioService.getMe();
-        carritoService.eliminarProductoDelCarrito(usuario.getId(), productId);
+        Long usuarioId = usuarioService.getMeId();
+        carritoService.eliminarProductoDelCarrito(usuarioId, productId);
         return ResponseEntity.ok(new ResponseBody<>("Product removed from cart", null));
     }
 
@@ -55,41 +62,67 @@ public class CarritoController {
             @PathVariable Long productId,
             @RequestParam(name = "quantity", required = true) Integer quantity
     ) {
-        Usuario usuario = usuarioService.getMe();
-        carritoService.actualizarCantidadProducto(usuario.getId(), productId, quantity);
+        Long usuarioId = usuarioService.getMeId();
+        carritoService.actualizarCantidadProducto(usuarioId, productId, quantity);
         return ResponseEntity.ok(new ResponseBody<>("Product quantity updated", null));
     }
 
+    @PatchMapping
+    public ResponseEntity<ResponseBody<List<ItemCarritoResponse>>> applyOperations(@RequestBody List<CartOperation> operations) {
+        List<ItemCarritoResponse> items = carritoService.aplicarOperaciones(usuarioService.getMeId(), operations);
+        return ResponseEntity.ok(new ResponseBody<>("Cart updated", items));
+    }
+
     @PostMapping("/empty-cart")
     public ResponseEntity<ResponseBody<?>> emptyCart() {
-        Usuario usuario = usuarioService.getMe();
-        carritoService.vaciarCarrito(usuario.getId());
+        Long usuarioId = usuarioService.getMeId();
+        carritoService.vaciarCarrito(usuarioId);
         return ResponseEntity.ok(new ResponseBody<>("Cart emptied", null));
     }
 
     @PostMapping("/checkout")
     public ResponseEntity<ResponseBody<?>> checkout() {
-        Usuario usuario = usuarioService.getMe();
-        Orden order = ordenService.crearOrdenDesdeCarrito(usuario.getId(), usuario.getDireccionEnvio());
-        return ResponseEntity.ok(new ResponseBody<>("Order created", order));
+        // Sin dirección explícita la orden usa la dirección de envío del usuario
+        if (checkoutQueueService.isEnabled()) {
+            CheckoutStatus status = checkoutQueueService.encolar(usuarioService.getMeId(), null);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/shopping-cart/checkout/" + status.numeroOrden()))
+                    .body(new ResponseBody<>("Order queued", status));
+        }
+        Orden order = ordenService.crearOrdenDesdeCarrito(usuarioService.getMeId(), null);
+        return ResponseEntity.ok(new ResponseBody<>("Order created", OrdenResponse.from(order)));
+    }
+
+    @GetMapping("/checkout/{numeroOrden}")
+    public ResponseEntity<ResponseBody<CheckoutStatus>> checkoutStatus(@PathVariable String numeroOrden) {
+        CheckoutStatus status = checkoutQueueService.getEstado(usuarioService.getMeId(), numeroOrden);
+        return ResponseEntity.ok(new ResponseBody<>("Order status", status));
     }
 
     @GetMapping("/items")
-    public ResponseEntity<ResponseBody<List<ItemCarrito>>> getItems() {
-        Usuario usuario = usuarioService.getMe();
-        Carrito carrito = carritoService.findCarritoWithItemsByUsuarioId(usuario.getId());
-        return ResponseEntity.ok(new ResponseBody<>("Items in cart", carrito.getItems()));
+    public ResponseEntity<ResponseBody<List<ItemCarritoResponse>>> getItems(WebRequest request) {
+        Long usuarioId = usuarioService.getMeId();
+        // La versión del carrito cambia con cada modificación, si el cliente ya la tiene se responde 304
+        String etag = "\"cart-" + usuarioId + "-" + carritoService.getVersionCarrito(usuarioId) + "\"";
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        List<ItemCarritoResponse> items = carritoService.getItemsResponse(usuarioId);
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .eTag(etag)
+                .body(new ResponseBody<>("Items in cart", items));
     }
 
     @PostMapping("/total")
     public ResponseEntity<ResponseBody<BigDecimal>> getTotal() {
-        Usuario usuario = usuarioService.getMe();
-        return ResponseEntity.ok(new ResponseBody<>("Total amount in cart", carritoService.calcularTotalCarrito(usuario.getId())));
+        Long usuarioId = usuarioService.getMeId();
+        return ResponseEntity.ok(new ResponseBody<>("Total amount in cart", carritoService.calcularTotalCarrito(usuarioId)));
     }
 
     @PostMapping("/count")
     public ResponseEntity<ResponseBody<Long>> countItems() {
-        Usuario usuario = usuarioService.getMe();
-        return ResponseEntity.ok(new ResponseBody<>("Number of items in cart", carritoService.contarItemsCarrito(usuario.getId())));
+        Long usuarioId = usuarioService.getMeId();
+        return ResponseEntity.ok(new ResponseBody<>("Number of items in cart", carritoService.contarItemsCarrito(usuarioId)));
     }
 }
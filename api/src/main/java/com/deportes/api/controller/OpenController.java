@@ -1,14 +1,18 @@
 package com.deportes.api.controller;
 
 
+import com.deportes.api.records.FiltroProductos;
 import com.deportes.api.records.LoginRequest;
 import com.deportes.api.records.RegisterRequest;
 import com.deportes.api.records.ResponseBody;
 import com.deportes.api.service.AuthService;
+import com.deportes.api.service.FacetasProductosService;
 import com.deportes.api.service.ProductoService;
+import com.deportes.api.service.SugerenciasService;
 import lombok.AllArgsConstructor;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.http.ResponseEntity;
@@ -19,7 +23,10 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
+import java.math.BigDecimal;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -29,6 +36,8 @@ public class OpenController {
 
     private final AuthService authService;
     private final ProductoService productoService;
+    private final SugerenciasService sugerenciasService;
+    private final FacetasProductosService facetasService;
 
     @PostMapping("/login")
     public ResponseEntity<ResponseBody<Map<String, String>>> login(@RequestBody LoginRequest loginRequest) {
@@ -42,27 +51,85 @@ public class OpenController {
         return ResponseEntity.ok(new ResponseBody<>("Register successful", null));
     }
 
+    // Sin filtros lista los productos con stock, como siempre; las facetas acompañan cada respuesta
     @GetMapping("/products")
     public ResponseEntity<ResponseBody<?>> getProducts(
             @RequestParam(defaultValue = "0") Integer page,
-            @RequestParam(defaultValue = "10") Integer size
+            @RequestParam(defaultValue = "10") Integer size,
+            @RequestParam(name = "category", required = false) List<Long> categorias,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(defaultValue = "true") Boolean inStock,
+            WebRequest request
     ) {
+        String etag = catalogEtag();
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
         Pageable pageable = PageRequest.of(page, size);
-        return ResponseEntity.ok(new ResponseBody<>("Products retrieved", productoService.findAllAvailable(pageable)));
+        FiltroProductos filtro = new FiltroProductos(categorias, minPrice, maxPrice, inStock);
+        return catalogResponse(etag).body(new ResponseBody<>("Products retrieved", facetasService.filtrar(filtro, pageable)));
+    }
+
+    @GetMapping("/products/search")
+    public ResponseEntity<ResponseBody<?>> searchProducts(
+            @RequestParam(name = "q", required = false) String texto,
+            @RequestParam(defaultValue = "0") Integer page,
+            @RequestParam(defaultValue = "10") Integer size,
+            WebRequest request
+    ) {
+        String etag = catalogEtag();
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        Pageable pageable = PageRequest.of(page, size);
+        return catalogResponse(etag).body(new ResponseBody<>("Products retrieved", productoService.searchByDescripcion(texto, pageable)));
+    }
+
+    @GetMapping("/products/suggest")
+    public ResponseEntity<ResponseBody<?>> suggestProducts(
+            @RequestParam(name = "q") String prefijo,
+            @RequestParam(defaultValue = "10") Integer limit,
+            WebRequest request
+    ) {
+        String etag = catalogEtag();
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return catalogResponse(etag).body(new ResponseBody<>("Suggestions retrieved", sugerenciasService.sugerir(prefijo, limit)));
     }
 
     @GetMapping("/products/{id}")
-    public ResponseEntity<ResponseBody<?>> getProductById(@PathVariable Long id) {
-        return ResponseEntity.ok(new ResponseBody<>("Product retrieved", productoService.findById(id)));
+    public ResponseEntity<ResponseBody<?>> getProductById(@PathVariable Long id, WebRequest request) {
+        String etag = catalogEtag();
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return catalogResponse(etag).body(new ResponseBody<>("Product retrieved", productoService.findResponseById(id)));
     }
 
     @GetMapping("/products/category/{category}")
     public ResponseEntity<ResponseBody<?>> getProductsByCategory(
             @PathVariable String category,
             @RequestParam(defaultValue = "0") Integer page,
-            @RequestParam(defaultValue = "10") Integer size
+            @RequestParam(defaultValue = "10") Integer size,
+            WebRequest request
     ) {
-        return ResponseEntity.ok(new ResponseBody<>("Products retrieved", productoService.findByCategoria(category, page, size)));
+        String etag = catalogEtag();
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return catalogResponse(etag).body(new ResponseBody<>("Products retrieved", productoService.findByCategoria(category, page, size)));
+    }
+
+    // Cualquier cambio en productos o stock invalida todas las lecturas del catálogo. La versión sale de las
+    // marcas de la base, así que todas las instancias al día responden con el mismo ETag
+    private String catalogEtag() {
+        return "\"catalog-" + productoService.getCatalogVersion() + "\"";
+    }
+
+    private ResponseEntity.BodyBuilder catalogResponse(String etag) {
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).eTag(etag);
     }
 
 }
@@ -2,10 +2,13 @@ package com.deportes.api.controller;
 
 import com.deportes.api.records.ResponseBody;
 import com.deportes.api.records.UserRequest;
+import com.deportes.api.records.UsuarioResponse;
 import com.deportes.api.service.OrdenService;
 import com.deportes.api.service.UserService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
@@ -24,18 +27,32 @@ public class UserController {
 
     @GetMapping("/me")
     public ResponseEntity<ResponseBody<?>> getMe() {
-        return ResponseEntity.ok(new ResponseBody<>("User retrieved", userService.getMe()));
+        return ResponseEntity.ok(new ResponseBody<>("User retrieved", UsuarioResponse.from(userService.getMe())));
     }
 
     @PatchMapping("/me")
     public ResponseEntity<ResponseBody<?>> updateMe(@RequestBody UserRequest userRequest) {
         userService.updateMe(userRequest);
-        return ResponseEntity.ok(new ResponseBody<>("User updated", userService.getMe()));
+        return ResponseEntity.ok(new ResponseBody<>("User updated", UsuarioResponse.from(userService.getMe())));
     }
 
+    // Con el parámetro cursor (vacío para la primera página) se pagina por cursor, sin conteo ni offset
     @GetMapping("/me/orders")
-    public ResponseEntity<ResponseBody<?>> getMyOrders(@RequestParam(name = "page", defaultValue = "0") Integer page, @RequestParam(name = "size", defaultValue = "10") Integer size) {
-        Pageable pageable = Pageable.ofSize(size).withPage(page);
-        return ResponseEntity.ok(new ResponseBody<>("Orders retrieved", ordenService.findByUsuarioId(userService.getMe().getId(), pageable)));
+    public ResponseEntity<ResponseBody<?>> getMyOrders(@RequestParam(name = "page", defaultValue = "0") Integer page,
+                                                       @RequestParam(name = "size", defaultValue = "10") Integer size,
+                                                       @RequestParam(name = "cursor", required = false) String cursor,
+                                                       @RequestParam(name = "expand", required = false) String expand) {
+        boolean conItems = "items".equals(expand);
+        if (cursor != null) {
+            return ResponseEntity.ok(new ResponseBody<>("Orders retrieved",
+                    ordenService.findByUsuarioIdCursor(userService.getMeId(), cursor, size, conItems)));
+        }
+        Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Order.desc("fechaCreacion"), Sort.Order.desc("id")));
+        return ResponseEntity.ok(new ResponseBody<>("Orders retrieved", ordenService.findByUsuarioId(userService.getMeId(), pageable, conItems)));
+    }
+
+    @GetMapping("/me/orders/{numeroOrden}")
+    public ResponseEntity<ResponseBody<?>> getMyOrder(@PathVariable String numeroOrden) {
+        return ResponseEntity.ok(new ResponseBody<>("Order retrieved", ordenService.findDetalleByNumeroOrden(userService.getMeId(), numeroOrden)));
     }
 }
@@ -7,6 +7,8 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
+
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
@@ -30,6 +32,22 @@ public class Carrito {
     @OneToMany(mappedBy = "carrito", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<ItemCarrito> items = new ArrayList<>();
 
+    // Contadores mantenidos por cada modificación del carrito para leerlos sin recorrer los items
+    @Builder.Default
+    @ColumnDefault("0")
+    @Column(name = "item_count", nullable = false)
+    private Long itemCount = 0L;
+
+    @Builder.Default
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private BigDecimal total = BigDecimal.ZERO;
+
+    @Builder.Default
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version = 0L;
+
     // Métodos para manipular items del carrito
     public void agregarItem(Producto producto, int cantidad) {
         // Verificar si el producto ya está en el carrito
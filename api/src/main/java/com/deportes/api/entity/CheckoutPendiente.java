@@ -0,0 +1,42 @@
+package com.deportes.api.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Checkout aceptado por la cola asíncrona que todavía no se confirmó. Se escribe antes de responder 202 y
+// se borra en la misma transacción que crea la orden; si la instancia se cae, al arrancar vuelve a encolar
+// los suyos. El carrito no se vacía hasta confirmar, así que la orden se puede rehacer entera
+@Entity
+@Table(name = "checkouts_pendientes",
+        uniqueConstraints = @UniqueConstraint(name = "uk_checkouts_pendientes_numero_orden", columnNames = "numero_orden"),
+        indexes = @Index(name = "idx_checkouts_pendientes_nodo", columnList = "nodo, id"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CheckoutPendiente {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "numero_orden", nullable = false, length = 21)
+    private String numeroOrden;
+
+    @Column(name = "usuario_id", nullable = false)
+    private Long usuarioId;
+
+    // null usa la dirección de envío del usuario, igual que el checkout síncrono
+    private String direccionEnvio;
+
+    // Instancia que lo aceptó (app.orders.node-id), la única que lo recupera al arrancar
+    @Column(nullable = false)
+    private Integer nodo;
+
+    @Column(nullable = false)
+    private LocalDateTime creadoEn;
+}
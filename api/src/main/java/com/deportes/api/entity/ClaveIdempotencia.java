@@ -0,0 +1,47 @@
+package com.deportes.api.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "claves_idempotencia",
+        uniqueConstraints = @UniqueConstraint(name = "uk_claves_idempotencia_usuario_clave", columnNames = {"usuario_id", "clave"}),
+        indexes = @Index(name = "idx_claves_idempotencia_expiracion", columnList = "expiracion"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ClaveIdempotencia {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "usuario_id", nullable = false)
+    private Long usuarioId;
+
+    @Column(nullable = false, length = 64)
+    private String clave;
+
+    // Método, ruta y hash de query y cuerpo de la petición original, una clave no puede reutilizarse en otra operación
+    @Column(nullable = false)
+    private String peticion;
+
+    // null mientras la petición original sigue en proceso
+    private Integer estado;
+
+    @Column(length = 100)
+    private String contentType;
+
+    private String location;
+
+    @Column(columnDefinition = "MEDIUMTEXT")
+    private String cuerpo;
+
+    @Column(nullable = false)
+    private LocalDateTime expiracion;
+}
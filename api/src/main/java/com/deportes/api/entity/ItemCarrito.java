@@ -12,7 +12,8 @@ import lombok.NoArgsConstructor;
 import java.math.BigDecimal;
 
 @Entity
-@Table(name = "items_carrito")
+@Table(name = "items_carrito", uniqueConstraints = @UniqueConstraint(
+        name = "uk_items_carrito_carrito_producto", columnNames = {"carrito_id", "producto_id"}))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
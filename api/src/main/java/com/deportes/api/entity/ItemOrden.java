@@ -7,10 +7,13 @@ import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
+
 import java.math.BigDecimal;
 
 @Entity
-@Table(name = "items_orden")
+@Table(name = "items_orden", indexes = @Index(
+        name = "idx_items_orden_stock_aplicado", columnList = "stock_aplicado, producto_id"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -35,6 +38,11 @@ public class ItemOrden {
     @NotNull(message = "El precio unitario es obligatorio")
     private BigDecimal precioUnitario;
 
+    // false mientras el descuento de un producto en modo inventario en memoria no se haya escrito en productos
+    @ColumnDefault("true")
+    @Column(name = "stock_aplicado", nullable = false)
+    private Boolean stockAplicado = true;
+
     // Método para calcular subtotal
     public BigDecimal calcularSubtotal() {
         return precioUnitario.multiply(new BigDecimal(cantidad));
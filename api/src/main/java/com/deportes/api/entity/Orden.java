@@ -14,7 +14,9 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "ordenes")
+@Table(name = "ordenes",
+        uniqueConstraints = @UniqueConstraint(name = "uk_ordenes_numero_orden", columnNames = "numero_orden"),
+        indexes = @Index(name = "idx_ordenes_usuario_fecha_id", columnList = "usuario_id, fecha_creacion, id"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -24,6 +26,7 @@ public class Orden {
     private Long id;
 
     @NotNull(message = "El número de orden es obligatorio")
+    @Column(name = "numero_orden", length = 21)
     private String numeroOrden;
 
     @ManyToOne(fetch = FetchType.LAZY)
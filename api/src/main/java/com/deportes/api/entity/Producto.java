@@ -6,15 +6,22 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "productos")
+@Table(name = "productos", indexes = @Index(name = "idx_productos_actualizado_en", columnList = "actualizado_en"))
+@NamedEntityGraph(name = Producto.CON_CATEGORIA, attributeNodes = @NamedAttributeNode("categoria"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Producto {
+    // Perfil de carga para los listados de entidades que sí necesitan la categoría
+    public static final String CON_CATEGORIA = "Producto.categoria";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -33,10 +40,20 @@ public class Producto {
     @NotBlank(message = "La ruta de la imagen es obligatoria")
     private String rutaImagen;
 
-    @ManyToOne
+    // Lazy: el carrito y el checkout cargan productos sin su categoría; el nombre sale del diccionario
+    // de categorías o de un @EntityGraph en el método del repositorio que lo necesite
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "categoria_id")
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private Categoria categoria;
 
+    // Lo mantiene la base en cada INSERT y UPDATE de la fila, también en los descuentos de stock por SQL;
+    // cada instancia de la API lo consulta para enterarse de los cambios hechos por las demás
+    @Column(name = "actualizado_en", insertable = false, updatable = false,
+            columnDefinition = "DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6)")
+    private LocalDateTime actualizadoEn;
+
     // Método para verificar disponibilidad
     public boolean tieneStock(int cantidad) {
         return this.cantidadDisponible >= cantidad;
@@ -0,0 +1,28 @@
+package com.deportes.api.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Registro de productos borrados: la fila de productos ya no existe, así que es la única forma de que
+// las otras instancias de la API sepan que deben quitarlo de sus índices en memoria
+@Entity
+@Table(name = "productos_eliminados", indexes = @Index(name = "idx_productos_eliminados_eliminado_en", columnList = "eliminado_en"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductoEliminado {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "producto_id", nullable = false)
+    private Long productoId;
+
+    @Column(name = "eliminado_en", insertable = false, updatable = false,
+            columnDefinition = "DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6)")
+    private LocalDateTime eliminadoEn;
+}
@@ -44,10 +44,13 @@ public class Usuario implements UserDetails {
 
     @NotBlank(message = "La contraseña es obligatoria")
     @Size(min = 8, message = "La contraseña debe tener al menos 8 caracteres")
+    @JsonIgnore
     private String password;
 
     // Token para recuperación de contraseña
+    @JsonIgnore
     private String recuperacionToken;
+    @JsonIgnore
     private LocalDate recuperacionTokenExpiracion;
 
     @JsonIgnore
@@ -0,0 +1,36 @@
+package com.deportes.api.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Ventas acumuladas por producto y día, se mantienen en cada checkout para no recorrer items_orden
+@Entity
+@Table(name = "ventas_producto_diarias", uniqueConstraints = @UniqueConstraint(
+        name = "uk_ventas_producto_diarias_producto_fecha", columnNames = {"producto_id", "fecha"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class VentaProductoDiaria {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "producto_id", nullable = false)
+    private Long productoId;
+
+    @Column(nullable = false)
+    private LocalDate fecha;
+
+    @Column(nullable = false)
+    private Long unidades;
+
+    @Column(nullable = false)
+    private BigDecimal importe;
+}
@@ -0,0 +1,8 @@
+package com.deportes.api.event;
+
+import java.util.Collection;
+
+// Productos cuyo cambio ya está confirmado en la base, hecho por esta instancia o por otra.
+// Se publica fuera de transacción; las vistas en memoria del catálogo lo usan para releer esos productos
+public record CatalogoModificadoEvent(Collection<Long> productoIds) {
+}
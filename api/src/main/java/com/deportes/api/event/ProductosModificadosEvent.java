@@ -0,0 +1,8 @@
+package com.deportes.api.event;
+
+import java.util.Collection;
+
+// Se publica dentro de la transacción que modifica productos; tras el commit dispara la sincronización
+// del catálogo, que vuelve a leer los cambios de la base y publica CatalogoModificadoEvent
+public record ProductosModificadosEvent(Collection<Long> productoIds) {
+}
@@ -0,0 +1,8 @@
+package com.deportes.api.records;
+
+public record CartOperation(Type type, Long productId, Integer quantity) {
+
+    public enum Type {
+        ADD, SET, REMOVE
+    }
+}
@@ -0,0 +1,9 @@
+package com.deportes.api.records;
+
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+
+// La página se serializa con sus campos de siempre y agrega las facetas al mismo nivel
+public record CatalogoResponse(@JsonUnwrapped PageResponse<ProductoResponse> pagina,
+                               FacetasResponse facetas
+                               ) {
+}
@@ -0,0 +1,4 @@
+package com.deportes.api.records;
+
+public record CategoriaResponse(Long id, String nombre) {
+}
@@ -0,0 +1,20 @@
+package com.deportes.api.records;
+
+public record CheckoutStatus(String numeroOrden, Estado estado, String motivo) {
+
+    public enum Estado {
+        PENDIENTE, CONFIRMADA, CANCELADA
+    }
+
+    public static CheckoutStatus pendiente(String numeroOrden) {
+        return new CheckoutStatus(numeroOrden, Estado.PENDIENTE, null);
+    }
+
+    public static CheckoutStatus confirmada(String numeroOrden) {
+        return new CheckoutStatus(numeroOrden, Estado.CONFIRMADA, null);
+    }
+
+    public static CheckoutStatus cancelada(String numeroOrden, String motivo) {
+        return new CheckoutStatus(numeroOrden, Estado.CANCELADA, motivo);
+    }
+}
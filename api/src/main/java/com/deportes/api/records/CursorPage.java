@@ -0,0 +1,10 @@
+package com.deportes.api.records;
+
+import java.util.List;
+
+// Página por cursor: nextCursor se envía tal cual en la siguiente petición, es null en la última página
+public record CursorPage<T>(List<T> content,
+                            String nextCursor,
+                            boolean hasNext
+                            ) {
+}
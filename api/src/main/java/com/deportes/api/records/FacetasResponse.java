@@ -0,0 +1,20 @@
+package com.deportes.api.records;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+// Cada conteo aplica todos los filtros salvo el de su propia faceta, así el cliente ve cuántos
+// productos obtendría al cambiar esa selección
+public record FacetasResponse(List<Categoria> categorias,
+                              List<RangoPrecio> precios,
+                              long enStock,
+                              long sinStock
+                              ) {
+
+    public record Categoria(Long id, String nombre, long cantidad) {
+    }
+
+    // desde es inclusivo y hasta exclusivo; null en los extremos abiertos
+    public record RangoPrecio(BigDecimal desde, BigDecimal hasta, long cantidad) {
+    }
+}
@@ -0,0 +1,12 @@
+package com.deportes.api.records;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+// Filtros combinables del catálogo; los valores null no filtran
+public record FiltroProductos(List<Long> categorias,
+                              BigDecimal precioMinimo,
+                              BigDecimal precioMaximo,
+                              Boolean enStock
+                              ) {
+}
@@ -0,0 +1,18 @@
+package com.deportes.api.records;
+
+import java.math.BigDecimal;
+
+public record ItemCarritoResponse(Long id,
+                                  ProductoResponse producto,
+                                  Integer cantidad,
+                                  BigDecimal precioUnitario
+                                  ) {
+
+    // Constructor plano para las proyecciones JPQL
+    public ItemCarritoResponse(Long id, Long productoId, String descripcion, BigDecimal monto,
+                               Integer cantidadDisponible, String rutaImagen, Long categoriaId,
+                               String categoriaNombre, Integer cantidad, BigDecimal precioUnitario) {
+        this(id, new ProductoResponse(productoId, descripcion, monto, cantidadDisponible, rutaImagen, categoriaId, categoriaNombre),
+                cantidad, precioUnitario);
+    }
+}
@@ -0,0 +1,21 @@
+package com.deportes.api.records;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.math.BigDecimal;
+
+public record ItemOrdenResponse(Long id,
+                                @JsonIgnore Long ordenId,
+                                ProductoResponse producto,
+                                Integer cantidad,
+                                BigDecimal precioUnitario
+                                ) {
+
+    // Constructor plano para las proyecciones JPQL
+    public ItemOrdenResponse(Long id, Long ordenId, Long productoId, String descripcion, BigDecimal monto,
+                             Integer cantidadDisponible, String rutaImagen, Long categoriaId,
+                             String categoriaNombre, Integer cantidad, BigDecimal precioUnitario) {
+        this(id, ordenId, new ProductoResponse(productoId, descripcion, monto, cantidadDisponible, rutaImagen, categoriaId, categoriaNombre),
+                cantidad, precioUnitario);
+    }
+}
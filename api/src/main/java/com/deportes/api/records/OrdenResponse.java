@@ -0,0 +1,33 @@
+package com.deportes.api.records;
+
+import com.deportes.api.entity.Orden;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public record OrdenResponse(Long id,
+                            String numeroOrden,
+                            LocalDateTime fechaCreacion,
+                            BigDecimal total,
+                            String direccionEnvio,
+                            Orden.EstadoOrden estado,
+                            @JsonInclude(JsonInclude.Include.NON_NULL) List<ItemOrdenResponse> items
+                            ) {
+
+    // Constructor para las proyecciones JPQL, los items solo se cargan cuando se piden
+    public OrdenResponse(Long id, String numeroOrden, LocalDateTime fechaCreacion, BigDecimal total,
+                         String direccionEnvio, Orden.EstadoOrden estado) {
+        this(id, numeroOrden, fechaCreacion, total, direccionEnvio, estado, null);
+    }
+
+    public OrdenResponse withItems(List<ItemOrdenResponse> items) {
+        return new OrdenResponse(id, numeroOrden, fechaCreacion, total, direccionEnvio, estado, items);
+    }
+
+    public static OrdenResponse from(Orden orden) {
+        return new OrdenResponse(orden.getId(), orden.getNumeroOrden(), orden.getFechaCreacion(),
+                orden.getTotal(), orden.getDireccionEnvio(), orden.getEstado());
+    }
+}
@@ -0,0 +1,18 @@
+package com.deportes.api.records;
+
+import org.springframework.data.domain.Page;
+
+import java.util.List;
+
+public record PageResponse<T>(List<T> content,
+                              int number,
+                              int size,
+                              long totalElements,
+                              int totalPages
+                              ) {
+
+    public static <T> PageResponse<T> from(Page<T> page) {
+        return new PageResponse<>(page.getContent(), page.getNumber(), page.getSize(),
+                page.getTotalElements(), page.getTotalPages());
+    }
+}
@@ -0,0 +1,32 @@
+package com.deportes.api.records;
+
+import com.deportes.api.entity.Producto;
+
+import java.math.BigDecimal;
+
+public record ProductoResponse(Long id,
+                               String descripcion,
+                               BigDecimal monto,
+                               Integer cantidadDisponible,
+                               String rutaImagen,
+                               CategoriaResponse categoria
+                               ) {
+
+    // Constructor plano para las proyecciones JPQL
+    public ProductoResponse(Long id, String descripcion, BigDecimal monto, Integer cantidadDisponible,
+                            String rutaImagen, Long categoriaId, String categoriaNombre) {
+        this(id, descripcion, monto, cantidadDisponible, rutaImagen,
+                categoriaId == null ? null : new CategoriaResponse(categoriaId, categoriaNombre));
+    }
+
+    public ProductoResponse withCantidadDisponible(Integer cantidadDisponible) {
+        return new ProductoResponse(id, descripcion, monto, cantidadDisponible, rutaImagen, categoria);
+    }
+
+    public static ProductoResponse from(Producto producto) {
+        return new ProductoResponse(producto.getId(), producto.getDescripcion(), producto.getMonto(),
+                producto.getCantidadDisponible(), producto.getRutaImagen(),
+                producto.getCategoria() == null ? null : producto.getCategoria().getId(),
+                producto.getCategoria() == null ? null : producto.getCategoria().getNombre());
+    }
+}
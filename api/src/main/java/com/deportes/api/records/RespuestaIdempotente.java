@@ -0,0 +1,9 @@
+package com.deportes.api.records;
+
+public record RespuestaIdempotente(String peticion,
+                                   int estado,
+                                   String contentType,
+                                   String location,
+                                   String cuerpo
+                                   ) {
+}
@@ -0,0 +1,8 @@
+package com.deportes.api.records;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+// productoId es null cuando la sugerencia es una categoría
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record SugerenciaResponse(String texto, Long productoId) {
+}
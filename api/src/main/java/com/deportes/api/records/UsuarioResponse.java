@@ -0,0 +1,19 @@
+package com.deportes.api.records;
+
+import com.deportes.api.entity.Usuario;
+
+import java.time.LocalDate;
+
+public record UsuarioResponse(Long id,
+                              String nombre,
+                              String apellido,
+                              String email,
+                              String direccionEnvio,
+                              LocalDate fechaNacimiento
+                              ) {
+
+    public static UsuarioResponse from(Usuario usuario) {
+        return new UsuarioResponse(usuario.getId(), usuario.getNombre(), usuario.getApellido(),
+                usuario.getEmail(), usuario.getDireccionEnvio(), usuario.getFechaNacimiento());
+    }
+}
@@ -0,0 +1,6 @@
+package com.deportes.api.records;
+
+import java.math.BigDecimal;
+
+public record VentaProducto(Long productoId, long unidades, BigDecimal importe) {
+}
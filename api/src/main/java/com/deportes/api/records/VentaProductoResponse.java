@@ -0,0 +1,10 @@
+package com.deportes.api.records;
+
+import java.math.BigDecimal;
+
+public record VentaProductoResponse(Long productoId,
+                                    String descripcion,
+                                    Long unidades,
+                                    BigDecimal importe
+                                    ) {
+}
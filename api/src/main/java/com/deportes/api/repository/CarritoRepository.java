@@ -2,10 +2,13 @@ package com.deportes.api.repository;
 
 import com.deportes.api.entity.Carrito;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
 import java.util.Optional;
 
 @Repository
@@ -16,6 +19,47 @@ public interface CarritoRepository extends JpaRepository<Carrito, Long> {
     @Query("SELECT c FROM Carrito c LEFT JOIN FETCH c.items i LEFT JOIN FETCH i.producto WHERE c.usuario.id = :usuarioId")
     Optional<Carrito> findByUsuarioIdWithItems(@Param("usuarioId") Long usuarioId);
 
+    // Carga en una sola consulta todo lo que necesita el checkout: items, productos y usuario
+    @Query("SELECT DISTINCT c FROM Carrito c JOIN FETCH c.usuario LEFT JOIN FETCH c.items i LEFT JOIN FETCH i.producto WHERE c.usuario.id = :usuarioId")
+    Optional<Carrito> findByUsuarioIdForCheckout(@Param("usuarioId") Long usuarioId);
+
+    // Bloquea la fila del carrito. Toda escritura del carrito la toma antes de leer items, así las
+    // diferencias que se suman a item_count/total se calculan sobre cantidades que nadie más está cambiando
+    @Query(value = "SELECT id FROM carritos WHERE usuario_id = :usuarioId FOR UPDATE", nativeQuery = true)
+    Optional<Long> bloquearPorUsuarioId(@Param("usuarioId") Long usuarioId);
+
+    @Query("SELECT c.itemCount FROM Carrito c WHERE c.usuario.id = :usuarioId")
+    Optional<Long> findItemCountByUsuarioId(@Param("usuarioId") Long usuarioId);
+
+    @Query("SELECT c.total FROM Carrito c WHERE c.usuario.id = :usuarioId")
+    Optional<BigDecimal> findTotalByUsuarioId(@Param("usuarioId") Long usuarioId);
+
+    @Query("SELECT c.version FROM Carrito c WHERE c.usuario.id = :usuarioId")
+    Optional<Long> findVersionByUsuarioId(@Param("usuarioId") Long usuarioId);
+
+    // Suma al carrito la cantidad recién agregada de un producto al precio guardado en su item
+    @Transactional
+    @Modifying
+    @Query(value = """
+            UPDATE carritos c
+            JOIN items_carrito i ON i.carrito_id = c.id AND i.producto_id = :productoId
+            SET c.item_count = c.item_count + :cantidad,
+                c.total = c.total + :cantidad * i.precio_unitario,
+                c.version = c.version + 1
+            WHERE c.usuario_id = :usuarioId
+            """, nativeQuery = true)
+    int sumarProductoATotales(@Param("usuarioId") Long usuarioId, @Param("productoId") Long productoId, @Param("cantidad") Integer cantidad);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Carrito c SET c.itemCount = c.itemCount + :items, c.total = c.total + :importe, c.version = c.version + 1 WHERE c.id = :carritoId")
+    int ajustarTotales(@Param("carritoId") Long carritoId, @Param("items") Long items, @Param("importe") BigDecimal importe);
+
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE carritos SET item_count = 0, total = 0, version = version + 1 WHERE id = :carritoId", nativeQuery = true)
+    int reiniciarTotales(@Param("carritoId") Long carritoId);
+
     @Query("SELECT COUNT(i) FROM Carrito c JOIN c.items i WHERE c.usuario.id = :usuarioId")
     Long countItemsByUsuarioId(@Param("usuarioId") Long usuarioId);
 
@@ -0,0 +1,16 @@
+package com.deportes.api.repository;
+
+import com.deportes.api.entity.Categoria;
+import com.deportes.api.records.CategoriaResponse;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface CategoriaRepository extends JpaRepository<Categoria, Long> {
+
+    @Query("SELECT new com.deportes.api.records.CategoriaResponse(c.id, c.nombre) FROM Categoria c ORDER BY c.id")
+    List<CategoriaResponse> findAllResponses();
+}
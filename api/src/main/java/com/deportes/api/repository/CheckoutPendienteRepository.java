@@ -0,0 +1,24 @@
+package com.deportes.api.repository;
+
+import com.deportes.api.entity.CheckoutPendiente;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Repository
+public interface CheckoutPendienteRepository extends JpaRepository<CheckoutPendiente, Long> {
+
+    List<CheckoutPendiente> findByNodoOrderById(Integer nodo);
+
+    boolean existsByNumeroOrdenAndUsuarioId(String numeroOrden, Long usuarioId);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM CheckoutPendiente c WHERE c.numeroOrden = :numeroOrden")
+    int deleteByNumeroOrden(@Param("numeroOrden") String numeroOrden);
+}
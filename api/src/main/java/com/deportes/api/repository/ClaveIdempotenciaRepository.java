@@ -0,0 +1,28 @@
+package com.deportes.api.repository;
+
+import com.deportes.api.entity.ClaveIdempotencia;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface ClaveIdempotenciaRepository extends JpaRepository<ClaveIdempotencia, Long> {
+
+    Optional<ClaveIdempotencia> findByUsuarioIdAndClave(Long usuarioId, String clave);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM ClaveIdempotencia c WHERE c.usuarioId = :usuarioId AND c.clave = :clave")
+    int deleteByUsuarioIdAndClave(@Param("usuarioId") Long usuarioId, @Param("clave") String clave);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM ClaveIdempotencia c WHERE c.expiracion < :ahora")
+    int deleteExpired(@Param("ahora") LocalDateTime ahora);
+}
@@ -1,6 +1,7 @@
 package com.deportes.api.repository;
 
 import com.deportes.api.entity.ItemCarrito;
+import com.deportes.api.records.ItemCarritoResponse;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -16,8 +17,33 @@ public interface ItemCarritoRepository extends JpaRepository<ItemCarrito, Long>
 
     List<ItemCarrito> findByCarritoId(Long carritoId);
 
+    @Query("SELECT new com.deportes.api.records.ItemCarritoResponse(i.id, p.id, p.descripcion, p.monto, p.cantidadDisponible, "
+            + "p.rutaImagen, c.id, c.nombre, i.cantidad, i.precioUnitario) "
+            + "FROM ItemCarrito i JOIN i.producto p LEFT JOIN p.categoria c "
+            + "WHERE i.carrito.usuario.id = :usuarioId ORDER BY i.id")
+    List<ItemCarritoResponse> findResponsesByUsuarioId(@Param("usuarioId") Long usuarioId);
+
     Optional<ItemCarrito> findByCarritoIdAndProductoId(Long carritoId, Long productoId);
 
+    @Query("SELECT i.producto.id, i.cantidad, i.precioUnitario FROM ItemCarrito i WHERE i.carrito.id = :carritoId")
+    List<Object[]> findCantidadesByCarritoId(@Param("carritoId") Long carritoId);
+
+    // Inserta el producto o suma la cantidad si ya está en el carrito, solo si el stock alcanza.
+    // Devuelve 0 si no existe el carrito o el producto, o si no hay stock suficiente
+    @Transactional
+    @Modifying
+    @Query(value = """
+            INSERT INTO items_carrito (carrito_id, producto_id, cantidad, precio_unitario)
+            SELECT c.id, p.id, :cantidad, p.monto
+            FROM carritos c
+            JOIN productos p ON p.id = :productoId
+            LEFT JOIN items_carrito ic ON ic.carrito_id = c.id AND ic.producto_id = p.id
+            WHERE c.usuario_id = :usuarioId
+              AND p.cantidad_disponible >= COALESCE(ic.cantidad, 0) + :cantidad
+            ON DUPLICATE KEY UPDATE cantidad = items_carrito.cantidad + VALUES(cantidad)
+            """, nativeQuery = true)
+    int upsertCantidad(@Param("usuarioId") Long usuarioId, @Param("productoId") Long productoId, @Param("cantidad") Integer cantidad);
+
     @Transactional
     @Modifying
     @Query("DELETE FROM ItemCarrito i WHERE i.carrito.id = :carritoId AND i.producto.id = :productoId")
@@ -2,12 +2,13 @@ package com.deportes.api.repository;
 
 
 import com.deportes.api.entity.ItemOrden;
-import org.springframework.data.domain.Pageable;
+import com.deportes.api.records.ItemOrdenResponse;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -15,12 +16,13 @@ public interface ItemOrdenRepository extends JpaRepository<ItemOrden, Long> {
 
     List<ItemOrden> findByOrdenId(Long ordenId);
 
+    // Items de varias órdenes con su producto en una sola consulta
+    @Query("SELECT new com.deportes.api.records.ItemOrdenResponse(i.id, i.orden.id, p.id, p.descripcion, p.monto, "
+            + "p.cantidadDisponible, p.rutaImagen, c.id, c.nombre, i.cantidad, i.precioUnitario) "
+            + "FROM ItemOrden i JOIN i.producto p LEFT JOIN p.categoria c "
+            + "WHERE i.orden.id IN :ordenIds ORDER BY i.id")
+    List<ItemOrdenResponse> findResponsesByOrdenIdIn(@Param("ordenIds") Collection<Long> ordenIds);
+
     @Query("SELECT i FROM ItemOrden i WHERE i.producto.id = :productoId")
     List<ItemOrden> findByProductoId(@Param("productoId") Long productoId);
-
-    @Query("SELECT SUM(i.cantidad) FROM ItemOrden i WHERE i.producto.id = :productoId")
-    Long countTotalVentasByProductoId(@Param("productoId") Long productoId);
-
-    @Query("SELECT i.producto.id, SUM(i.cantidad) as total FROM ItemOrden i GROUP BY i.producto.id ORDER BY total DESC")
-    List<Object[]> findTopSellingProducts(Pageable pageable);
 }
\ No newline at end of file
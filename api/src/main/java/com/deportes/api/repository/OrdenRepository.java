@@ -1,16 +1,22 @@
 package com.deportes.api.repository;
 
 import com.deportes.api.entity.Orden;
+import com.deportes.api.records.OrdenResponse;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface OrdenRepository extends JpaRepository<Orden, Long> {
@@ -18,8 +24,34 @@ public interface OrdenRepository extends JpaRepository<Orden, Long> {
     @Query("SELECT o FROM Orden o WHERE o.usuario.id = :usuarioId")
     Page<Orden> findByUsuarioId(@Param("usuarioId") Long usuarioId, Pageable pageable);
 
+    @Query(value = "SELECT new com.deportes.api.records.OrdenResponse(o.id, o.numeroOrden, o.fechaCreacion, o.total, o.direccionEnvio, o.estado) "
+            + "FROM Orden o WHERE o.usuario.id = :usuarioId",
+            countQuery = "SELECT COUNT(o) FROM Orden o WHERE o.usuario.id = :usuarioId")
+    Page<OrdenResponse> findResponsesByUsuarioId(@Param("usuarioId") Long usuarioId, Pageable pageable);
+
+    // Paginación por cursor sobre (fecha_creacion DESC, id DESC), sin consulta de conteo
+    @Query("SELECT new com.deportes.api.records.OrdenResponse(o.id, o.numeroOrden, o.fechaCreacion, o.total, o.direccionEnvio, o.estado) "
+            + "FROM Orden o WHERE o.usuario.id = :usuarioId ORDER BY o.fechaCreacion DESC, o.id DESC")
+    List<OrdenResponse> findFirstResponsesByUsuarioId(@Param("usuarioId") Long usuarioId, Limit limit);
+
+    @Query("SELECT new com.deportes.api.records.OrdenResponse(o.id, o.numeroOrden, o.fechaCreacion, o.total, o.direccionEnvio, o.estado) "
+            + "FROM Orden o WHERE o.usuario.id = :usuarioId "
+            + "AND (o.fechaCreacion < :fecha OR (o.fechaCreacion = :fecha AND o.id < :id)) "
+            + "ORDER BY o.fechaCreacion DESC, o.id DESC")
+    List<OrdenResponse> findResponsesByUsuarioIdAfter(@Param("usuarioId") Long usuarioId,
+                                                      @Param("fecha") LocalDateTime fecha,
+                                                      @Param("id") Long id,
+                                                      Limit limit);
+
     Optional<Orden> findByNumeroOrden(String numeroOrden);
 
+    boolean existsByNumeroOrdenAndUsuarioId(String numeroOrden, Long usuarioId);
+
+    @Query("SELECT new com.deportes.api.records.OrdenResponse(o.id, o.numeroOrden, o.fechaCreacion, o.total, o.direccionEnvio, o.estado) "
+            + "FROM Orden o WHERE o.numeroOrden = :numeroOrden AND o.usuario.id = :usuarioId")
+    Optional<OrdenResponse> findResponseByNumeroOrdenAndUsuarioId(@Param("numeroOrden") String numeroOrden,
+                                                                 @Param("usuarioId") Long usuarioId);
+
     @Query("SELECT o FROM Orden o LEFT JOIN FETCH o.items i LEFT JOIN FETCH i.producto WHERE o.id = :ordenId")
     Optional<Orden> findByIdWithItems(@Param("ordenId") Long ordenId);
 
@@ -29,6 +61,15 @@ public interface OrdenRepository extends JpaRepository<Orden, Long> {
     @Query("SELECT o FROM Orden o WHERE o.fechaCreacion BETWEEN :startDate AND :endDate")
     List<Orden> findByDateRange(@Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
 
+    // Cursor de solo avance: con fetch size el driver entrega las filas por bloques en lugar de cargar todo el resultado
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT o FROM Orden o WHERE o.fechaCreacion BETWEEN :startDate AND :endDate ORDER BY o.fechaCreacion, o.id")
+    Stream<Orden> streamByDateRange(@Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
+
     @Query("SELECT COUNT(o) FROM Orden o WHERE o.usuario.id = :usuarioId")
     Long countByUsuarioId(@Param("usuarioId") Long usuarioId);
 }
\ No newline at end of file
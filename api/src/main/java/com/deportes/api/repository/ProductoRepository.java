@@ -1,31 +1,77 @@
 package com.deportes.api.repository;
 
 import com.deportes.api.entity.Producto;
+import com.deportes.api.records.ProductoResponse;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ProductoRepository extends JpaRepository<Producto, Long> {
 
+    String PRODUCTO_RESPONSE = "new com.deportes.api.records.ProductoResponse("
+            + "p.id, p.descripcion, p.monto, p.cantidadDisponible, p.rutaImagen, c.id, c.nombre)";
+
+    @Query(value = "SELECT " + PRODUCTO_RESPONSE + " FROM Producto p LEFT JOIN p.categoria c WHERE p.cantidadDisponible > 0",
+            countQuery = "SELECT COUNT(p) FROM Producto p WHERE p.cantidadDisponible > 0")
+    Page<ProductoResponse> findAllAvailableResponses(Pageable pageable);
+
+    @Query("SELECT " + PRODUCTO_RESPONSE + " FROM Producto p LEFT JOIN p.categoria c WHERE p.id = :id")
+    Optional<ProductoResponse> findResponseById(@Param("id") Long id);
+
+    // Filtra por la clave foránea (indexada) y el conteo no toca categorias
+    @Query(value = "SELECT " + PRODUCTO_RESPONSE + " FROM Producto p JOIN p.categoria c WHERE p.categoria.id = :categoriaId",
+            countQuery = "SELECT COUNT(p) FROM Producto p WHERE p.categoria.id = :categoriaId")
+    Page<ProductoResponse> findResponsesByCategoriaId(@Param("categoriaId") Long categoriaId, Pageable pageable);
+
+    @EntityGraph(Producto.CON_CATEGORIA)
+    @Override
+    List<Producto> findAll();
+
+    @EntityGraph(Producto.CON_CATEGORIA)
     @Query("SELECT p FROM Producto p WHERE p.cantidadDisponible > 0")
     Page<Producto> findAllAvailable(Pageable pageable);
 
-    @Query("SELECT p FROM Producto p WHERE LOWER(p.descripcion) LIKE LOWER(CONCAT('%', :descripcion, '%')) AND p.cantidadDisponible > 0")
-    Page<Producto> searchByDescripcion(@Param("descripcion") String descripcion, Pageable pageable);
+    @Query("SELECT " + PRODUCTO_RESPONSE + " FROM Producto p LEFT JOIN p.categoria c")
+    List<ProductoResponse> findAllResponses();
+
+    @Query("SELECT " + PRODUCTO_RESPONSE + " FROM Producto p LEFT JOIN p.categoria c WHERE p.id IN :ids")
+    List<ProductoResponse> findResponsesByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Lee el producto con lock de fila para cambiar su stock a un valor absoluto: un descuento concurrente
+    // (checkout o vaciado del inventario en memoria) espera y se aplica sobre el valor nuevo en lugar de perderse
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Producto p WHERE p.id = :id")
+    Optional<Producto> findByIdForUpdate(@Param("id") Long id);
+
+    // Descuenta el stock solo si alcanza; devuelve 0 si el producto no existe o no hay stock suficiente
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE productos SET cantidad_disponible = cantidad_disponible - :cantidad "
+            + "WHERE id = :id AND cantidad_disponible >= :cantidad", nativeQuery = true)
+    int reducirStockSiDisponible(@Param("id") Long id, @Param("cantidad") Integer cantidad);
 
+    @EntityGraph(Producto.CON_CATEGORIA)
     @Query("SELECT p FROM Producto p WHERE p.cantidadDisponible < :cantidad")
     List<Producto> findProductosWithLowStock(@Param("cantidad") Integer cantidad);
 
     @Query("SELECT COUNT(p) FROM Producto p WHERE p.cantidadDisponible = 0")
     Long countOutOfStockProducts();
 
-    @Query("SELECT p FROM Producto p WHERE p.categoria.nombre = :nombreCategoria")
-    Page<Producto> findByCategoriaNombre(String nombreCategoria, Pageable pageable);
+    @EntityGraph(Producto.CON_CATEGORIA)
+    @Query("SELECT p FROM Producto p WHERE p.categoria.id = :categoriaId")
+    List<Producto> findByCategoriaId(@Param("categoriaId") Long categoriaId);
 }
 
@@ -0,0 +1,62 @@
+package com.deportes.api.repository;
+
+import com.deportes.api.entity.VentaProductoDiaria;
+import com.deportes.api.records.VentaProductoResponse;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface VentaProductoDiariaRepository extends JpaRepository<VentaProductoDiaria, Long> {
+
+    @Query("SELECT new com.deportes.api.records.VentaProductoResponse(v.productoId, p.descripcion, SUM(v.unidades), SUM(v.importe)) "
+            + "FROM VentaProductoDiaria v JOIN Producto p ON p.id = v.productoId "
+            + "WHERE v.fecha >= :desde "
+            + "GROUP BY v.productoId, p.descripcion ORDER BY SUM(v.unidades) DESC")
+    List<VentaProductoResponse> findTopVendidos(@Param("desde") LocalDate desde, Limit limit);
+
+    @Query("SELECT new com.deportes.api.records.VentaProductoResponse(v.productoId, p.descripcion, SUM(v.unidades), SUM(v.importe)) "
+            + "FROM VentaProductoDiaria v JOIN Producto p ON p.id = v.productoId "
+            + "WHERE v.productoId = :productoId "
+            + "GROUP BY v.productoId, p.descripcion")
+    Optional<VentaProductoResponse> findTotalByProductoId(@Param("productoId") Long productoId);
+
+    @Query("SELECT new com.deportes.api.records.VentaProductoResponse(v.productoId, p.descripcion, SUM(v.unidades), SUM(v.importe)) "
+            + "FROM VentaProductoDiaria v JOIN Producto p ON p.id = v.productoId "
+            + "GROUP BY v.productoId, p.descripcion")
+    List<VentaProductoResponse> findTotales();
+
+    @Query("SELECT new com.deportes.api.records.VentaProductoResponse(v.productoId, p.descripcion, SUM(v.unidades), SUM(v.importe)) "
+            + "FROM VentaProductoDiaria v JOIN Producto p ON p.id = v.productoId "
+            + "WHERE v.productoId IN :productoIds "
+            + "GROUP BY v.productoId, p.descripcion")
+    List<VentaProductoResponse> findTotalesByProductoIdIn(@Param("productoIds") Collection<Long> productoIds);
+
+    // Reconstrucción completa desde items_orden. Los items de inventario en memoria aún pendientes
+    // se excluyen porque los suma el hilo que los aplica
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM ventas_producto_diarias", nativeQuery = true)
+    int deleteAllRows();
+
+    @Transactional
+    @Modifying
+    @Query(value = """
+            INSERT INTO ventas_producto_diarias (producto_id, fecha, unidades, importe)
+            SELECT i.producto_id, DATE(o.fecha_creacion), SUM(i.cantidad), SUM(i.cantidad * i.precio_unitario)
+            FROM items_orden i
+            JOIN ordenes o ON o.id = i.orden_id
+            WHERE i.stock_aplicado = TRUE
+            GROUP BY i.producto_id, DATE(o.fecha_creacion)
+            """, nativeQuery = true)
+    int insertFromItemsOrden();
+}
@@ -4,6 +4,8 @@ import com.deportes.api.entity.Carrito;
 import com.deportes.api.entity.ItemCarrito;
 import com.deportes.api.entity.Producto;
 import com.deportes.api.entity.Usuario;
+import com.deportes.api.records.CartOperation;
+import com.deportes.api.records.ItemCarritoResponse;
 import com.deportes.api.repository.CarritoRepository;
 import com.deportes.api.repository.ItemCarritoRepository;
 import org.springframework.data.rest.webmvc.ResourceNotFoundException;
@@ -16,8 +18,10 @@ public interface CarritoService {
 
     Carrito findCarritoWithItemsByUsuarioId(Long usuarioId);
 
+    Carrito findCarritoParaCheckout(Long usuarioId);
 
-    ItemCarrito agregarProductoAlCarrito(Long usuarioId, Long productoId, Integer cantidad);
+
+    void agregarProductoAlCarrito(Long usuarioId, Long productoId, Integer cantidad);
 
 
     void actualizarCantidadProducto(Long usuarioId, Long productoId, Integer cantidad);
@@ -28,11 +32,19 @@ public interface CarritoService {
 
     void vaciarCarrito(Long usuarioId);
 
+    void vaciarCarrito(Carrito carrito);
+
+    List<ItemCarritoResponse> aplicarOperaciones(Long usuarioId, List<CartOperation> operaciones);
+
     List<ItemCarrito> getItemsCarrito(Long usuarioId);
 
+    List<ItemCarritoResponse> getItemsResponse(Long usuarioId);
+
     BigDecimal calcularTotalCarrito(Long usuarioId);
 
     Long contarItemsCarrito(Long usuarioId);
 
+    Long getVersionCarrito(Long usuarioId);
+
     void addProduct(Long productId, Long userId, Integer quantity);
 }
@@ -0,0 +1,15 @@
+package com.deportes.api.service;
+
+import com.deportes.api.records.CategoriaResponse;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface CategoriaService {
+
+    List<CategoriaResponse> findAll();
+
+    Optional<CategoriaResponse> findById(Long id);
+
+    Optional<CategoriaResponse> findByNombre(String nombre);
+}
@@ -0,0 +1,12 @@
+package com.deportes.api.service;
+
+import com.deportes.api.records.CheckoutStatus;
+
+public interface CheckoutQueueService {
+
+    boolean isEnabled();
+
+    CheckoutStatus encolar(Long usuarioId, String direccionEnvio);
+
+    CheckoutStatus getEstado(Long usuarioId, String numeroOrden);
+}
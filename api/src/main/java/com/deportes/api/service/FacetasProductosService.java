@@ -0,0 +1,10 @@
+package com.deportes.api.service;
+
+import com.deportes.api.records.CatalogoResponse;
+import com.deportes.api.records.FiltroProductos;
+import org.springframework.data.domain.Pageable;
+
+public interface FacetasProductosService {
+
+    CatalogoResponse filtrar(FiltroProductos filtro, Pageable pageable);
+}
@@ -0,0 +1,19 @@
+package com.deportes.api.service;
+
+import com.deportes.api.records.RespuestaIdempotente;
+
+public interface IdempotenciaService {
+
+    Reserva reservar(Long usuarioId, String clave, String peticion);
+
+    void completar(Long usuarioId, String clave, RespuestaIdempotente respuesta);
+
+    void liberar(Long usuarioId, String clave);
+
+    record Reserva(Estado estado, RespuestaIdempotente respuesta) {
+
+        public enum Estado {
+            RESERVADA, EN_CURSO, COMPLETADA
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.deportes.api.service;
+
+import com.deportes.api.records.PageResponse;
+import com.deportes.api.records.ProductoResponse;
+import org.springframework.data.domain.Pageable;
+
+public interface IndiceProductosService {
+
+    PageResponse<ProductoResponse> buscar(String texto, Pageable pageable);
+}
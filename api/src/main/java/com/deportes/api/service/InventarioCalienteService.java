@@ -0,0 +1,14 @@
+package com.deportes.api.service;
+
+import java.util.Map;
+
+public interface InventarioCalienteService {
+
+    boolean esCaliente(Long productoId);
+
+    void reservar(Map<Long, Integer> cantidades);
+
+    void ajustarStock(Long productoId, long diferencia);
+
+    Long getDisponible(Long productoId);
+}
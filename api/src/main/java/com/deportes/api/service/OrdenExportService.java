@@ -0,0 +1,14 @@
+package com.deportes.api.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+
+public interface OrdenExportService {
+
+    void exportar(LocalDateTime desde, LocalDateTime hasta, Formato formato, OutputStream out) throws IOException;
+
+    enum Formato {
+        CSV, NDJSON
+    }
+}
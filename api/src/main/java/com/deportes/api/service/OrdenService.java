@@ -1,17 +1,24 @@
 package com.deportes.api.service;
 
 import com.deportes.api.entity.Orden;
-import org.springframework.data.domain.Page;
+import com.deportes.api.records.CursorPage;
+import com.deportes.api.records.OrdenResponse;
+import com.deportes.api.records.PageResponse;
 import org.springframework.data.domain.Pageable;
 
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.UUID;
 
 public interface OrdenService {
     List<Orden> findAll();
 
-    Page<Orden> findByUsuarioId(Long usuarioId, Pageable pageable);
+    PageResponse<OrdenResponse> findByUsuarioId(Long usuarioId, Pageable pageable);
+
+    PageResponse<OrdenResponse> findByUsuarioId(Long usuarioId, Pageable pageable, boolean conItems);
+
+    CursorPage<OrdenResponse> findByUsuarioIdCursor(Long usuarioId, String cursor, int size, boolean conItems);
+
+    OrdenResponse findDetalleByNumeroOrden(Long usuarioId, String numeroOrden);
 
     Orden findById(Long id);
 
@@ -19,8 +26,12 @@ public interface OrdenService {
 
     Orden findByNumeroOrden(String numeroOrden);
 
+    boolean existeOrdenDeUsuario(String numeroOrden, Long usuarioId);
+
     Orden crearOrdenDesdeCarrito(Long usuarioId, String direccionEnvio);
 
+    Orden crearOrdenDesdeCarrito(Long usuarioId, String direccionEnvio, String numeroOrden);
+
     Orden actualizarEstadoOrden(Long id, Orden.EstadoOrden nuevoEstado);
 
     Orden actualizarDireccionEnvio(Long id, String nuevaDireccion);
@@ -31,12 +42,5 @@ public interface OrdenService {
 
     Long countByUsuarioId(Long usuarioId);
 
-    private String generarNumeroOrden() {
-        // Formato: ORD-[año][mes][dia]-[UUID aleatorio corto]
-        LocalDateTime now = LocalDateTime.now();
-        String fecha = String.format("%d%02d%02d", now.getYear(), now.getMonthValue(), now.getDayOfMonth());
-        String randomPart = UUID.randomUUID().toString().substring(0, 8).toUpperCase();
-
-        return "ORD-" + fecha + "-" + randomPart;
-    }
+    String generarNumeroOrden();
 }
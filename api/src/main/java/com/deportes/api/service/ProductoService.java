@@ -3,19 +3,25 @@ package com.deportes.api.service;
 
 
 import com.deportes.api.entity.Producto;
+import com.deportes.api.records.PageResponse;
+import com.deportes.api.records.ProductoResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public interface ProductoService {
     List<Producto> findAll();
-    Page<Producto> findAllAvailable(Pageable pageable);
-    Page<Producto> searchByDescripcion(String descripcion, Pageable pageable);
+    PageResponse<ProductoResponse> findAllAvailable(Pageable pageable);
+    PageResponse<ProductoResponse> searchByDescripcion(String descripcion, Pageable pageable);
     Producto findById(Long id);
+    ProductoResponse findResponseById(Long id);
+    List<Producto> findAllById(Collection<Long> ids);
     Producto save(Producto producto);
     Producto update(Long id, Producto productoDetails);
     void delete(Long id);
@@ -24,7 +30,10 @@ public interface ProductoService {
     void actualizarStock(Long id, Integer cantidad);
     boolean verificarStock(Long id, Integer cantidad);
     void reducirStock(Long id, Integer cantidad);
+    void reducirStockEnLote(Map<Long, Integer> cantidades);
     List<Producto> findByNombreCategoria(String nombreCategoria);
 
-    Page<Producto> findByCategoria(String category, Integer page, Integer size);
+    PageResponse<ProductoResponse> findByCategoria(String category, Integer page, Integer size);
+
+    long getCatalogVersion();
 }
\ No newline at end of file
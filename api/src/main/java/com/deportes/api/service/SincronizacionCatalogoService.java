@@ -0,0 +1,8 @@
+package com.deportes.api.service;
+
+public interface SincronizacionCatalogoService {
+
+    void sincronizar();
+
+    long getVersion();
+}
@@ -0,0 +1,10 @@
+package com.deportes.api.service;
+
+import com.deportes.api.records.SugerenciaResponse;
+
+import java.util.List;
+
+public interface SugerenciasService {
+
+    List<SugerenciaResponse> sugerir(String prefijo, int limite);
+}
@@ -30,5 +30,7 @@ void recuperarPassword(String token, String newPassword);
 
     Usuario getMe();
 
+    Long getMeId();
+
     void updateMe(UserRequest userRequest);
 }
@@ -0,0 +1,19 @@
+package com.deportes.api.service;
+
+import com.deportes.api.records.VentaProducto;
+import com.deportes.api.records.VentaProductoResponse;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+public interface VentasService {
+
+    void registrarVentas(LocalDate fecha, Collection<VentaProducto> ventas);
+
+    List<VentaProductoResponse> findTopVendidos(int limite, int dias);
+
+    VentaProductoResponse findTotalByProductoId(Long productoId);
+
+    int reconstruir();
+}
@@ -0,0 +1,40 @@
+package com.deportes.api.service.impl;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+// Serializa las actualizaciones de una vista en memoria del catálogo. Los ids modificados se encolan y
+// el hilo que toma el lock relee de la base todos los pendientes y los aplica: la lectura ocurre con el
+// lock tomado, así que lo último que se aplica es siempre lo último que se leyó y una lectura vieja no
+// pisa a una más nueva. Cada id entra a la cola después del commit que lo modificó, por lo que la
+// lectura que lo resuelve ya lo ve
+final class ActualizacionesCatalogo {
+    private final ConcurrentLinkedQueue<Long> pendientes = new ConcurrentLinkedQueue<>();
+
+    // Recibe los ids pendientes, los lee de la base y publica el resultado
+    private final Consumer<Set<Long>> releerYAplicar;
+
+    ActualizacionesCatalogo(Consumer<Set<Long>> releerYAplicar) {
+        this.releerYAplicar = releerYAplicar;
+    }
+
+    // Al volver, el cambio ya está publicado: lo aplicó este hilo o lo incluyó otro que tomó el lock antes.
+    // Varios commits concurrentes se resuelven con una sola lectura
+    void modificados(Collection<Long> ids) {
+        pendientes.addAll(ids);
+        aplicarPendientes();
+    }
+
+    private synchronized void aplicarPendientes() {
+        Set<Long> ids = new HashSet<>();
+        for (Long id = pendientes.poll(); id != null; id = pendientes.poll()) {
+            ids.add(id);
+        }
+        if (!ids.isEmpty()) {
+            releerYAplicar.accept(ids);
+        }
+    }
+}
@@ -10,46 +10,49 @@ import com.deportes.api.repository.UsuarioRepository;
 import com.deportes.api.service.AuthService;
 import com.deportes.api.service.UserService;
 import jakarta.transaction.Transactional;
-import lombok.AllArgsConstructor;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.BadCredentialsException;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
-import java.util.List;
+import java.util.ArrayList;
 import java.util.Optional;
 import java.util.UUID;
 
 @Service
-@AllArgsConstructor
+@RequiredArgsConstructor
 @Slf4j
 public class AuthServiceImpl implements AuthService {
 
-    private final AuthenticationManager authenticationManager;
     private final UsuarioRepository userService;
     private final JwtProvider jwtTokenProvider;
     private final PasswordEncoder passwordEncoder;
 
+    // Hash de referencia para igualar el coste de un login con email inexistente
+    private volatile String dummyHash;
 
     @Override
     public String login(LoginRequest request) {
-        try {
-            Authentication authentication = authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(request.email(), request.password()));
-            if (authentication == null) throw new CustomValidationException("Contraseña y/o usuario incorrecto");
-            else {
-                Optional<Usuario> user = userService.findByEmail(request.email());
-                if (user.isEmpty()) throw new CustomValidationException("Contraseña y/o usuario incorrecto");
-                SecurityContextHolder.getContext().setAuthentication(authentication);
-                return jwtTokenProvider.generateToken(authentication);
-            }
-        } catch (Exception e) {
-            throw new CustomValidationException("Exception: "+ e.getMessage());
+        // Una sola lectura del usuario: se verifica el hash y se firma el token con la misma instancia
+        Optional<Usuario> user = userService.findByEmail(request.email());
+        if (user.isEmpty()) {
+            passwordEncoder.matches(request.password(), dummyHash());
+            throw new CustomValidationException("Contraseña y/o usuario incorrecto");
         }
+        if (!passwordEncoder.matches(request.password(), user.get().getPassword())) {
+            throw new CustomValidationException("Contraseña y/o usuario incorrecto");
+        }
+        return jwtTokenProvider.generateToken(user.get());
+    }
+
+    private String dummyHash() {
+        String hash = dummyHash;
+        if (hash == null) {
+            hash = passwordEncoder.encode(UUID.randomUUID().toString());
+            dummyHash = hash;
+        }
+        return hash;
     }
 
     @Transactional
@@ -64,7 +67,7 @@ public class AuthServiceImpl implements AuthService {
             user.setFechaNacimiento(request.fechaNacimiento());
             user.setDireccionEnvio(request.direccionEnvio());
             user.setPassword(passwordEncoder.encode(request.password()));
-            user.setCarrito(Carrito.builder().items(List.of()).build());
+            user.setCarrito(Carrito.builder().usuario(user).items(new ArrayList<>()).build());
             userService.save(user);
     }
 }
\ No newline at end of file
@@ -5,27 +5,47 @@ import com.deportes.api.entity.ItemCarrito;
 import com.deportes.api.entity.Producto;
 import com.deportes.api.entity.Usuario;
 import com.deportes.api.exception.CustomValidationException;
+import com.deportes.api.records.CartOperation;
+import com.deportes.api.records.ItemCarritoResponse;
 import com.deportes.api.repository.CarritoRepository;
 import com.deportes.api.repository.ItemCarritoRepository;
 import com.deportes.api.service.CarritoService;
+import com.deportes.api.service.InventarioCalienteService;
 import com.deportes.api.service.ProductoService;
 import com.deportes.api.service.UserService;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.boot.actuate.endpoint.SecurityContext;
 import org.springframework.data.rest.webmvc.ResourceNotFoundException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
 public class CarritoServiceImpl implements CarritoService {
+    private static final String UPSERT_ITEM_SQL = """
+            INSERT INTO items_carrito (carrito_id, producto_id, cantidad, precio_unitario)
+            VALUES (:carritoId, :productoId, :cantidad, :precioUnitario)
+            ON DUPLICATE KEY UPDATE cantidad = VALUES(cantidad)
+            """;
+    private static final String DELETE_ITEM_SQL =
+            "DELETE FROM items_carrito WHERE carrito_id = :carritoId AND producto_id = :productoId";
+
     private final CarritoRepository carritoRepository;
     private final ItemCarritoRepository itemCarritoRepository;
     private final ProductoService productoService;
     private final UserService usuarioService;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final InventarioCalienteService inventarioCaliente;
 
     @Transactional
     public Carrito findCarritoByUsuarioId(Long usuarioId) {
@@ -40,51 +60,49 @@ public class CarritoServiceImpl implements CarritoService {
     }
 
     @Transactional
-    public ItemCarrito agregarProductoAlCarrito(Long usuarioId, Long productoId, Integer cantidad) {
-        Carrito carrito = carritoRepository.findByUsuarioId(usuarioId)
-                .orElseGet(() -> {
-                    Usuario usuario = usuarioService.findById(usuarioId);
-                    Carrito nuevoCarrito = new Carrito();
-                    nuevoCarrito.setUsuario(usuario);
-                    return carritoRepository.save(nuevoCarrito);
-                });
+    public Carrito findCarritoParaCheckout(Long usuarioId) {
+        // El lock va antes de leer los items: así la orden se arma con lo último que confirmó cualquier
+        // otra operación sobre el carrito y nadie lo modifica hasta que se vacíe al final del checkout
+        carritoRepository.bloquearPorUsuarioId(usuarioId);
+        return carritoRepository.findByUsuarioIdForCheckout(usuarioId)
+                .orElseThrow(() -> new ResourceNotFoundException("Carrito no encontrado para el usuario con id: " + usuarioId));
+    }
 
-        Producto producto = productoService.findById(productoId);
+    @Transactional
+    public void agregarProductoAlCarrito(Long usuarioId, Long productoId, Integer cantidad) {
+        if (cantidad == null || cantidad < 1) {
+            throw new CustomValidationException("La cantidad mínima es 1");
+        }
 
-        // Verificar stock
-        if (!producto.tieneStock(cantidad)) {
-            throw new CustomValidationException("No hay suficiente stock disponible para el producto: " + producto.getDescripcion());
+        // Camino habitual: una sola sentencia inserta o suma la cantidad validando el stock. Los productos con
+        // inventario en memoria se validan contra su contador, la base todavía no descontó las reservas
+        carritoRepository.bloquearPorUsuarioId(usuarioId);
+        if (!inventarioCaliente.esCaliente(productoId)
+                && itemCarritoRepository.upsertCantidad(usuarioId, productoId, cantidad) > 0) {
+            carritoRepository.sumarProductoATotales(usuarioId, productoId, cantidad);
+            return;
         }
 
-        // Buscar si el producto ya está en el carrito
-        ItemCarrito itemCarrito = itemCarritoRepository.findByCarritoIdAndProductoId(carrito.getId(), productoId)
-                .orElse(null);
+        // Ninguna fila afectada (falta el carrito, el producto no existe o no hay stock suficiente) o producto caliente
+        Carrito carrito = obtenerOCrearCarrito(usuarioId);
 
-        if (itemCarrito != null) {
-            // Actualizar cantidad si ya existe
-            int nuevaCantidad = itemCarrito.getCantidad() + cantidad;
+        Producto producto = productoService.findById(productoId);
 
-            // Verificar stock para la nueva cantidad
-            if (!producto.tieneStock(nuevaCantidad)) {
-                throw new CustomValidationException("No hay suficiente stock disponible para la cantidad solicitada");
-            }
+        int cantidadActual = itemCarritoRepository.findByCarritoIdAndProductoId(carrito.getId(), productoId)
+                .map(ItemCarrito::getCantidad)
+                .orElse(0);
 
-            itemCarrito.setCantidad(nuevaCantidad);
-        } else {
-            // Crear nuevo item si no existe
-            itemCarrito = new ItemCarrito();
-            itemCarrito.setCarrito(carrito);
-            itemCarrito.setProducto(producto);
-            itemCarrito.setCantidad(cantidad);
-            itemCarrito.setPrecioUnitario(producto.getMonto());
+        // Verificar stock para la nueva cantidad
+        if (!hayStock(producto, cantidadActual + cantidad)
+                || itemCarritoRepository.upsertCantidad(usuarioId, productoId, cantidad) == 0) {
+            throw new CustomValidationException("No hay suficiente stock disponible para el producto: " + producto.getDescripcion());
         }
-
-        return itemCarritoRepository.save(itemCarrito);
+        carritoRepository.sumarProductoATotales(usuarioId, productoId, cantidad);
     }
 
     @Transactional
     public void actualizarCantidadProducto(Long usuarioId, Long productoId, Integer cantidad) {
-        Carrito carrito = findCarritoByUsuarioId(usuarioId);
+        Carrito carrito = findCarritoBloqueado(usuarioId);
 
         ItemCarrito itemCarrito = itemCarritoRepository.findByCarritoIdAndProductoId(carrito.getId(), productoId)
                 .orElseThrow(() -> new ResourceNotFoundException("Producto no encontrado en el carrito"));
@@ -92,7 +110,7 @@ public class CarritoServiceImpl implements CarritoService {
         Producto producto = productoService.findById(productoId);
 
         // Verificar stock
-        if (!producto.tieneStock(cantidad)) {
+        if (!hayStock(producto, cantidad)) {
             throw new CustomValidationException("No hay suficiente stock disponible para la cantidad solicitada");
         }
 
@@ -100,21 +118,132 @@ public class CarritoServiceImpl implements CarritoService {
             // Eliminar el producto si la cantidad es 0 o negativa
             eliminarProductoDelCarrito(usuarioId, productoId);
         } else {
+            int diferencia = cantidad - itemCarrito.getCantidad();
             itemCarrito.setCantidad(cantidad);
             itemCarritoRepository.save(itemCarrito);
+            carritoRepository.ajustarTotales(carrito.getId(), (long) diferencia,
+                    itemCarrito.getPrecioUnitario().multiply(BigDecimal.valueOf(diferencia)));
         }
     }
 
     @Transactional
     public void eliminarProductoDelCarrito(Long usuarioId, Long productoId) {
-        Carrito carrito = findCarritoByUsuarioId(usuarioId);
-        itemCarritoRepository.deleteByCarritoIdAndProductoId(carrito.getId(), productoId);
+        Carrito carrito = findCarritoBloqueado(usuarioId);
+        itemCarritoRepository.findByCarritoIdAndProductoId(carrito.getId(), productoId).ifPresent(item -> {
+            itemCarritoRepository.deleteByCarritoIdAndProductoId(carrito.getId(), productoId);
+            carritoRepository.ajustarTotales(carrito.getId(), (long) -item.getCantidad(), item.calcularSubtotal().negate());
+        });
     }
 
     @Transactional
     public void vaciarCarrito(Long usuarioId) {
-        Carrito carrito = findCarritoByUsuarioId(usuarioId);
+        vaciarCarrito(findCarritoBloqueado(usuarioId));
+    }
+
+    @Transactional
+    public void vaciarCarrito(Carrito carrito) {
+        // Si quien llama ya tiene el lock (checkout) volver a tomarlo en la misma transacción no espera
+        carritoRepository.bloquearPorUsuarioId(carrito.getUsuario().getId());
         itemCarritoRepository.deleteAllByCarritoId(carrito.getId());
+        carritoRepository.reiniciarTotales(carrito.getId());
+    }
+
+    @Transactional
+    public List<ItemCarritoResponse> aplicarOperaciones(Long usuarioId, List<CartOperation> operaciones) {
+        // El lock va antes de cualquier lectura: la instantánea de la transacción se toma en la primera
+        // consulta sin lock y debe incluir lo que confirmó quien tenía el carrito antes
+        carritoRepository.bloquearPorUsuarioId(usuarioId);
+        Carrito carrito = obtenerOCrearCarrito(usuarioId);
+
+        Map<Long, Integer> cantidadesActuales = new HashMap<>();
+        Map<Long, BigDecimal> preciosActuales = new HashMap<>();
+        for (Object[] fila : itemCarritoRepository.findCantidadesByCarritoId(carrito.getId())) {
+            cantidadesActuales.put((Long) fila[0], (Integer) fila[1]);
+            preciosActuales.put((Long) fila[0], (BigDecimal) fila[2]);
+        }
+
+        // Se resuelven las operaciones en orden para obtener la cantidad final de cada producto
+        Map<Long, Integer> cantidadesFinales = new LinkedHashMap<>();
+        for (CartOperation operacion : operaciones) {
+            if (operacion.type() == null || operacion.productId() == null) {
+                throw new CustomValidationException("Cada operación requiere tipo y producto");
+            }
+            Long productoId = operacion.productId();
+            int actual = cantidadesFinales.getOrDefault(productoId, cantidadesActuales.getOrDefault(productoId, 0));
+            int cantidad = operacion.quantity() == null ? 0 : operacion.quantity();
+            switch (operacion.type()) {
+                case ADD -> {
+                    if (cantidad < 1) {
+                        throw new CustomValidationException("La cantidad mínima es 1");
+                    }
+                    cantidadesFinales.put(productoId, actual + cantidad);
+                }
+                case SET -> {
+                    if (cantidad < 0) {
+                        throw new CustomValidationException("La cantidad no puede ser negativa");
+                    }
+                    cantidadesFinales.put(productoId, cantidad);
+                }
+                case REMOVE -> cantidadesFinales.put(productoId, 0);
+            }
+        }
+
+        Map<Long, Producto> productos = new HashMap<>();
+        for (Producto producto : productoService.findAllById(cantidadesFinales.keySet())) {
+            productos.put(producto.getId(), producto);
+        }
+
+        List<SqlParameterSource> upserts = new ArrayList<>();
+        List<SqlParameterSource> eliminaciones = new ArrayList<>();
+        long diferenciaItems = 0;
+        BigDecimal diferenciaTotal = BigDecimal.ZERO;
+        for (Map.Entry<Long, Integer> entrada : cantidadesFinales.entrySet()) {
+            Long productoId = entrada.getKey();
+            int cantidad = entrada.getValue();
+            Integer actual = cantidadesActuales.get(productoId);
+            MapSqlParameterSource parametros = new MapSqlParameterSource()
+                    .addValue("carritoId", carrito.getId())
+                    .addValue("productoId", productoId);
+
+            if (cantidad == 0) {
+                if (actual != null) {
+                    eliminaciones.add(parametros);
+                    diferenciaItems -= actual;
+                    diferenciaTotal = diferenciaTotal.subtract(preciosActuales.get(productoId).multiply(BigDecimal.valueOf(actual)));
+                }
+                continue;
+            }
+
+            Producto producto = productos.get(productoId);
+            if (producto == null) {
+                throw new ResourceNotFoundException("Producto no encontrado con id: " + productoId);
+            }
+            if (!hayStock(producto, cantidad)) {
+                throw new CustomValidationException("No hay suficiente stock disponible para el producto: " + producto.getDescripcion());
+            }
+            if (actual == null || actual != cantidad) {
+                // Un item existente conserva el precio con el que se agregó
+                BigDecimal precio = actual == null ? producto.getMonto() : preciosActuales.get(productoId);
+                int diferencia = cantidad - (actual == null ? 0 : actual);
+                upserts.add(parametros
+                        .addValue("cantidad", cantidad)
+                        .addValue("precioUnitario", precio));
+                diferenciaItems += diferencia;
+                diferenciaTotal = diferenciaTotal.add(precio.multiply(BigDecimal.valueOf(diferencia)));
+            }
+        }
+
+        if (!eliminaciones.isEmpty()) {
+            jdbcTemplate.batchUpdate(DELETE_ITEM_SQL, eliminaciones.toArray(SqlParameterSource[]::new));
+        }
+        if (!upserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPSERT_ITEM_SQL, upserts.toArray(SqlParameterSource[]::new));
+        }
+        if (!eliminaciones.isEmpty() || !upserts.isEmpty()) {
+            carritoRepository.ajustarTotales(carrito.getId(), diferenciaItems, diferenciaTotal);
+        }
+
+        return getItemsResponse(usuarioId);
     }
 
     @Transactional
@@ -124,18 +253,48 @@ public class CarritoServiceImpl implements CarritoService {
     }
 
     @Transactional
-    public BigDecimal calcularTotalCarrito(Long usuarioId) {
-        List<ItemCarrito> items = getItemsCarrito(usuarioId);
+    public List<ItemCarritoResponse> getItemsResponse(Long usuarioId) {
+        return itemCarritoRepository.findResponsesByUsuarioId(usuarioId);
+    }
 
-        return items.stream()
-                .map(item -> item.getPrecioUnitario().multiply(new BigDecimal(item.getCantidad())))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    @Transactional
+    public BigDecimal calcularTotalCarrito(Long usuarioId) {
+        return carritoRepository.findTotalByUsuarioId(usuarioId)
+                .orElseThrow(() -> new ResourceNotFoundException("Carrito no encontrado para el usuario con id: " + usuarioId));
     }
 
     @Transactional
     public Long contarItemsCarrito(Long usuarioId) {
-        Carrito carrito = findCarritoByUsuarioId(usuarioId);
-        return itemCarritoRepository.countTotalItemsInCarrito(carrito.getId());
+        return carritoRepository.findItemCountByUsuarioId(usuarioId)
+                .orElseThrow(() -> new ResourceNotFoundException("Carrito no encontrado para el usuario con id: " + usuarioId));
+    }
+
+    @Transactional
+    public Long getVersionCarrito(Long usuarioId) {
+        return carritoRepository.findVersionByUsuarioId(usuarioId)
+                .orElseThrow(() -> new ResourceNotFoundException("Carrito no encontrado para el usuario con id: " + usuarioId));
+    }
+
+    private boolean hayStock(Producto producto, int cantidad) {
+        Long disponible = inventarioCaliente.getDisponible(producto.getId());
+        return disponible == null ? producto.tieneStock(cantidad) : disponible >= cantidad;
+    }
+
+    // Toma el lock del carrito antes de leer las cantidades de sus items; ver bloquearPorUsuarioId
+    private Carrito findCarritoBloqueado(Long usuarioId) {
+        carritoRepository.bloquearPorUsuarioId(usuarioId)
+                .orElseThrow(() -> new ResourceNotFoundException("Carrito no encontrado para el usuario con id: " + usuarioId));
+        return findCarritoByUsuarioId(usuarioId);
+    }
+
+    private Carrito obtenerOCrearCarrito(Long usuarioId) {
+        return carritoRepository.findByUsuarioId(usuarioId)
+                .orElseGet(() -> {
+                    Usuario usuario = usuarioService.findById(usuarioId);
+                    Carrito nuevoCarrito = new Carrito();
+                    nuevoCarrito.setUsuario(usuario);
+                    return carritoRepository.save(nuevoCarrito);
+                });
     }
 
     @Override
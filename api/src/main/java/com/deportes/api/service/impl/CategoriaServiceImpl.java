@@ -0,0 +1,53 @@
+package com.deportes.api.service.impl;
+
+import com.deportes.api.records.CategoriaResponse;
+import com.deportes.api.repository.CategoriaRepository;
+import com.deportes.api.service.CategoriaService;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Diccionario inmutable de categorías: son pocas y solo cambian por scripts SQL, así que se leen una vez
+// al arrancar y se resuelven ids y nombres sin consultar ni hacer join con categorias. Los nombres se
+// comparan sin acentos ni mayúsculas
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CategoriaServiceImpl implements CategoriaService {
+    private final CategoriaRepository categoriaRepository;
+
+    private List<CategoriaResponse> categorias = List.of();
+    private Map<Long, CategoriaResponse> porId = Map.of();
+    private Map<String, CategoriaResponse> porNombre = Map.of();
+
+    @PostConstruct
+    void init() {
+        categorias = List.copyOf(categoriaRepository.findAllResponses());
+        porId = categorias.stream().collect(Collectors.toUnmodifiableMap(CategoriaResponse::id, Function.identity()));
+        porNombre = categorias.stream().collect(Collectors.toUnmodifiableMap(
+                categoria -> TextoBusqueda.normalizar(categoria.nombre()), Function.identity(), (primera, otra) -> primera));
+        log.info("Diccionario de categorías cargado con {} categorías", categorias.size());
+    }
+
+    @Override
+    public List<CategoriaResponse> findAll() {
+        return categorias;
+    }
+
+    @Override
+    public Optional<CategoriaResponse> findById(Long id) {
+        return Optional.ofNullable(porId.get(id));
+    }
+
+    @Override
+    public Optional<CategoriaResponse> findByNombre(String nombre) {
+        return Optional.ofNullable(porNombre.get(TextoBusqueda.normalizar(nombre)));
+    }
+}
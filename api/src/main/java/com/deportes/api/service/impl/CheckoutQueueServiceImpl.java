@@ -0,0 +1,290 @@
+package com.deportes.api.service.impl;
+
+import com.deportes.api.config.LruCache;
+import com.deportes.api.entity.CheckoutPendiente;
+import com.deportes.api.exception.CustomValidationException;
+import com.deportes.api.exception.TooManyRequestsException;
+import com.deportes.api.records.CheckoutStatus;
+import com.deportes.api.repository.CheckoutPendienteRepository;
+import com.deportes.api.service.CarritoService;
+import com.deportes.api.service.CheckoutQueueService;
+import com.deportes.api.service.OrdenService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.rest.webmvc.ResourceNotFoundException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Checkout asíncrono: la petición solo valida y encola, y un grupo reducido de hilos confirma
+// varias órdenes en una misma transacción (group commit). Si el grupo falla se reintenta cada
+// orden por separado para que una sola orden inválida no cancele a las demás.
+//
+// Cada checkout aceptado queda en checkouts_pendientes antes de responder 202 y sale de ahí en la misma
+// transacción que crea la orden, así que una caída no pierde órdenes: al arrancar se vuelven a encolar las
+// de esta instancia. Las pendientes también se siguen en memoria para no consultar la base en cada estado;
+// las canceladas solo en memoria, durante RESULTADO_TTL_MILLIS.
+@Slf4j
+@Service
+public class CheckoutQueueServiceImpl implements CheckoutQueueService {
+    private static final long RESULTADO_TTL_MILLIS = TimeUnit.MINUTES.toMillis(15);
+
+    private final OrdenService ordenService;
+    private final CarritoService carritoService;
+    private final CheckoutPendienteRepository checkoutPendienteRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int nodo;
+    private final int workers;
+    private final int tamanoGrupo;
+    private final BlockingQueue<Solicitud> cola;
+    private final Map<String, Long> pendientes = new ConcurrentHashMap<>();
+    private final LruCache<String, Cancelacion> canceladas = new LruCache<>(10_000);
+    private final DistributionSummary grupos;
+    private final Counter canceladasTotal;
+
+    private ExecutorService executor;
+    private volatile boolean detenido;
+
+    public CheckoutQueueServiceImpl(OrdenService ordenService,
+                                    CarritoService carritoService,
+                                    CheckoutPendienteRepository checkoutPendienteRepository,
+                                    PlatformTransactionManager transactionManager,
+                                    MeterRegistry registry,
+                                    @Value("${app.checkout.async.enabled}") boolean enabled,
+                                    @Value("${app.checkout.async.workers}") int workers,
+                                    @Value("${app.checkout.async.group-size}") int tamanoGrupo,
+                                    @Value("${app.checkout.async.queue-capacity}") int capacidad,
+                                    @Value("${app.orders.node-id}") int nodo) {
+        this.ordenService = ordenService;
+        this.carritoService = carritoService;
+        this.checkoutPendienteRepository = checkoutPendienteRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.nodo = nodo;
+        this.workers = workers;
+        this.tamanoGrupo = tamanoGrupo;
+        this.cola = new ArrayBlockingQueue<>(capacidad);
+
+        Gauge.builder("checkout.queue.depth", cola, BlockingQueue::size).register(registry);
+        this.grupos = DistributionSummary.builder("checkout.group.size").register(registry);
+        this.canceladasTotal = Counter.builder("checkout.cancelled").register(registry);
+    }
+
+    @PostConstruct
+    void init() {
+        if (!enabled) {
+            return;
+        }
+        AtomicInteger sequence = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "checkout-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < workers; i++) {
+            executor.submit(this::trabajar);
+        }
+        recuperarPendientes();
+    }
+
+    // Checkouts aceptados antes de una caída: los hilos ya están consumiendo, si no entran todos en la cola
+    // el arranque espera a que se haga lugar
+    private void recuperarPendientes() {
+        List<CheckoutPendiente> recuperados = checkoutPendienteRepository.findByNodoOrderById(nodo);
+        if (recuperados.isEmpty()) {
+            return;
+        }
+        log.warn("Se recuperan {} checkouts aceptados y no confirmados antes del reinicio", recuperados.size());
+        for (CheckoutPendiente pendiente : recuperados) {
+            pendientes.put(pendiente.getNumeroOrden(), pendiente.getUsuarioId());
+            try {
+                cola.put(new Solicitud(pendiente.getUsuarioId(), pendiente.getDireccionEnvio(), pendiente.getNumeroOrden()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    // Los hilos terminan de vaciar la cola antes de salir
+    @PreDestroy
+    void shutdown() {
+        if (executor == null) {
+            return;
+        }
+        detenido = true;
+        executor.shutdown();
+        try {
+            executor.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public CheckoutStatus encolar(Long usuarioId, String direccionEnvio) {
+        if (carritoService.contarItemsCarrito(usuarioId) == 0) {
+            throw new CustomValidationException("No se puede crear una orden con un carrito vacío");
+        }
+        String numeroOrden = ordenService.generarNumeroOrden();
+        // Con la cola llena se rechaza sin escribir; si se llenó entre medio se borra lo escrito
+        if (cola.remainingCapacity() == 0) {
+            throw new TooManyRequestsException("Hay demasiadas órdenes en proceso, intenta de nuevo en unos segundos", 2);
+        }
+        checkoutPendienteRepository.save(CheckoutPendiente.builder()
+                .numeroOrden(numeroOrden)
+                .usuarioId(usuarioId)
+                .direccionEnvio(direccionEnvio)
+                .nodo(nodo)
+                .creadoEn(LocalDateTime.now())
+                .build());
+        pendientes.put(numeroOrden, usuarioId);
+        if (!cola.offer(new Solicitud(usuarioId, direccionEnvio, numeroOrden))) {
+            pendientes.remove(numeroOrden);
+            checkoutPendienteRepository.deleteByNumeroOrden(numeroOrden);
+            throw new TooManyRequestsException("Hay demasiadas órdenes en proceso, intenta de nuevo en unos segundos", 2);
+        }
+        return CheckoutStatus.pendiente(numeroOrden);
+    }
+
+    @Override
+    public CheckoutStatus getEstado(Long usuarioId, String numeroOrden) {
+        if (usuarioId.equals(pendientes.get(numeroOrden))) {
+            return CheckoutStatus.pendiente(numeroOrden);
+        }
+        Cancelacion cancelacion = canceladas.get(numeroOrden);
+        if (cancelacion != null && cancelacion.usuarioId().equals(usuarioId)) {
+            return CheckoutStatus.cancelada(numeroOrden, cancelacion.motivo());
+        }
+        if (ordenService.existeOrdenDeUsuario(numeroOrden, usuarioId)) {
+            return CheckoutStatus.confirmada(numeroOrden);
+        }
+        // Aceptado por otra instancia, o por esta antes de reiniciarse y todavía sin volver a encolar
+        if (checkoutPendienteRepository.existsByNumeroOrdenAndUsuarioId(numeroOrden, usuarioId)) {
+            return CheckoutStatus.pendiente(numeroOrden);
+        }
+        throw new ResourceNotFoundException("Orden no encontrada con número: " + numeroOrden);
+    }
+
+    private void trabajar() {
+        List<Solicitud> grupo = new ArrayList<>(tamanoGrupo);
+        while (true) {
+            Solicitud primera;
+            try {
+                primera = cola.poll(500, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (primera == null) {
+                if (detenido) {
+                    return;
+                }
+                continue;
+            }
+            grupo.add(primera);
+            cola.drainTo(grupo, tamanoGrupo - 1);
+            procesar(grupo);
+            grupo.clear();
+        }
+    }
+
+    // Un grupo comparte el contexto de persistencia y vaciarCarrito es un borrado masivo que no lo actualiza:
+    // una segunda orden del mismo usuario vería el carrito ya cargado con sus items. Solo va una solicitud por
+    // usuario en cada grupo; las demás se procesan en un grupo posterior, con el carrito ya vaciado y confirmado
+    private void procesar(List<Solicitud> solicitudes) {
+        Set<Long> usuarios = new HashSet<>();
+        List<Solicitud> grupo = new ArrayList<>(solicitudes.size());
+        List<Solicitud> repetidas = new ArrayList<>();
+        for (Solicitud solicitud : solicitudes) {
+            (usuarios.add(solicitud.usuarioId()) ? grupo : repetidas).add(solicitud);
+        }
+        procesarGrupo(grupo);
+        if (!repetidas.isEmpty()) {
+            procesar(repetidas);
+        }
+    }
+
+    private void procesarGrupo(List<Solicitud> grupo) {
+        grupos.record(grupo.size());
+        try {
+            transactionTemplate.executeWithoutResult(status -> grupo.forEach(this::crearOrden));
+            grupo.forEach(solicitud -> pendientes.remove(solicitud.numeroOrden()));
+            return;
+        } catch (RuntimeException e) {
+            if (grupo.size() == 1) {
+                cancelar(grupo.get(0), e);
+                return;
+            }
+            log.debug("Falló el grupo de {} órdenes, se reintentan por separado", grupo.size(), e);
+        }
+
+        for (Solicitud solicitud : grupo) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> crearOrden(solicitud));
+                pendientes.remove(solicitud.numeroOrden());
+            } catch (RuntimeException e) {
+                cancelar(solicitud, e);
+            }
+        }
+    }
+
+    // Se llama dentro de la transacción del grupo: la orden y el borrado del pendiente se confirman juntos
+    private void crearOrden(Solicitud solicitud) {
+        ordenService.crearOrdenDesdeCarrito(solicitud.usuarioId(), solicitud.direccionEnvio(), solicitud.numeroOrden());
+        checkoutPendienteRepository.deleteByNumeroOrden(solicitud.numeroOrden());
+    }
+
+    private void cancelar(Solicitud solicitud, RuntimeException e) {
+        String motivo;
+        if (e instanceof CustomValidationException || e instanceof IllegalStateException) {
+            motivo = e.getMessage();
+        } else {
+            log.error("No se pudo confirmar la orden {}", solicitud.numeroOrden(), e);
+            motivo = "No se pudo procesar la orden";
+        }
+        // Si la instancia se cae antes de este borrado, o falla, la orden se reintenta al arrancar; el usuario
+        // todavía no vio la cancelación
+        try {
+            checkoutPendienteRepository.deleteByNumeroOrden(solicitud.numeroOrden());
+        } catch (RuntimeException ex) {
+            log.error("No se pudo borrar el checkout pendiente {}", solicitud.numeroOrden(), ex);
+        }
+        canceladas.put(solicitud.numeroOrden(), new Cancelacion(solicitud.usuarioId(), motivo),
+                System.currentTimeMillis() + RESULTADO_TTL_MILLIS);
+        pendientes.remove(solicitud.numeroOrden());
+        canceladasTotal.increment();
+    }
+
+    private record Solicitud(Long usuarioId, String direccionEnvio, String numeroOrden) {
+    }
+
+    private record Cancelacion(Long usuarioId, String motivo) {
+    }
+}
@@ -0,0 +1,372 @@
+package com.deportes.api.service.impl;
+
+import com.deportes.api.event.CatalogoModificadoEvent;
+import com.deportes.api.exception.CustomValidationException;
+import com.deportes.api.records.CatalogoResponse;
+import com.deportes.api.records.FacetasResponse;
+import com.deportes.api.records.FiltroProductos;
+import com.deportes.api.records.PageResponse;
+import com.deportes.api.records.ProductoResponse;
+import com.deportes.api.repository.ProductoRepository;
+import com.deportes.api.service.FacetasProductosService;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+
+// Índices de bits sobre el catálogo: cada producto ocupa una posición fija y cada categoría, rango de
+// precio y el stock tienen un BitSet con las posiciones que cumplen. Un filtro combinado es la
+// intersección de los bitsets y los conteos de facetas son cardinalidades, sin consultas a la base.
+// Los cambios arman una versión nueva del índice que comparte con la anterior todo lo que no tocan
+// y la publican de una vez, los lectores nunca ven un estado a medias
+@Service
+@Slf4j
+public class FacetasProductosServiceImpl implements FacetasProductosService {
+    private static final int TAMANO_BLOQUE = 1024;
+
+    private final ProductoRepository productoRepository;
+
+    // Límites de los rangos de precio, ordenados: [0, l1), [l1, l2), ..., [ln, ∞)
+    private final BigDecimal[] limitesPrecio;
+
+    // Varios checkouts concurrentes se combinan en una sola lectura y una sola versión nueva del índice
+    private final ActualizacionesCatalogo actualizaciones = new ActualizacionesCatalogo(this::aplicar);
+
+    private volatile Indice indice;
+
+    public FacetasProductosServiceImpl(ProductoRepository productoRepository,
+                                       @Value("${app.catalog.facets.price-buckets}") List<BigDecimal> limitesPrecio) {
+        this.productoRepository = productoRepository;
+        this.limitesPrecio = limitesPrecio.stream().sorted().distinct().toArray(BigDecimal[]::new);
+    }
+
+    @PostConstruct
+    void init() {
+        Indice nuevo = new Indice(limitesPrecio.length + 1);
+        productoRepository.findAllResponses().forEach(producto -> nuevo.actualizar(producto.id(), producto));
+        indice = nuevo;
+        log.info("Facetas del catálogo cargadas con {} productos y {} categorías",
+                nuevo.vivos.cardinality(), nuevo.categorias.size());
+    }
+
+    // Los resultados siguen el orden de alta de los productos; no se admite otro ordenamiento
+    @Override
+    public CatalogoResponse filtrar(FiltroProductos filtro, Pageable pageable) {
+        if (pageable.getSort().isSorted()) {
+            throw new CustomValidationException("El listado de productos no admite ordenamiento");
+        }
+        if (filtro.precioMinimo() != null && filtro.precioMaximo() != null
+                && filtro.precioMinimo().compareTo(filtro.precioMaximo()) > 0) {
+            throw new CustomValidationException("El precio mínimo no puede ser mayor que el máximo");
+        }
+        Indice actual = indice;
+        BitSet porCategoria = actual.porCategorias(filtro.categorias());
+        BitSet porPrecio = filtro.precioMinimo() == null && filtro.precioMaximo() == null
+                ? null : actual.porPrecio(filtro.precioMinimo(), filtro.precioMaximo());
+        BitSet porStock = Boolean.TRUE.equals(filtro.enStock()) ? actual.conStock : null;
+
+        BitSet resultado = interseccion(actual.vivos, porCategoria, porPrecio, porStock);
+        BitSet sinFiltroDeStock = interseccion(actual.vivos, porCategoria, porPrecio);
+        long enStock = interseccion(sinFiltroDeStock, actual.conStock).cardinality();
+        FacetasResponse facetas = new FacetasResponse(
+                actual.contarCategorias(interseccion(actual.vivos, porPrecio, porStock)),
+                actual.contarPrecios(interseccion(actual.vivos, porCategoria, porStock)),
+                enStock,
+                sinFiltroDeStock.cardinality() - enStock);
+        return new CatalogoResponse(actual.pagina(resultado, pageable), facetas);
+    }
+
+    // Corre antes que el cambio de versión del catálogo para que el ETag nuevo no acompañe resultados viejos
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener
+    public void onCatalogoModificado(CatalogoModificadoEvent event) {
+        actualizaciones.modificados(event.productoIds());
+    }
+
+    // Se llama con el lock de actualizaciones tomado
+    private void aplicar(Set<Long> ids) {
+        Map<Long, ProductoResponse> productos = productoRepository.findResponsesByIdIn(ids).stream()
+                .collect(Collectors.toMap(ProductoResponse::id, Function.identity()));
+        Indice nuevo = indice.copiar();
+        for (Long id : ids) {
+            nuevo.actualizar(id, productos.get(id));
+        }
+        indice = nuevo;
+    }
+
+    private static BitSet interseccion(BitSet base, BitSet... filtros) {
+        BitSet resultado = (BitSet) base.clone();
+        for (BitSet filtro : filtros) {
+            if (filtro != null) {
+                resultado.and(filtro);
+            }
+        }
+        return resultado;
+    }
+
+    private Integer rangoDe(ProductoResponse producto) {
+        if (producto == null || producto.monto() == null) {
+            return null;
+        }
+        int rango = 0;
+        while (rango < limitesPrecio.length && producto.monto().compareTo(limitesPrecio[rango]) >= 0) {
+            rango++;
+        }
+        return rango;
+    }
+
+    private BigDecimal desde(int rango) {
+        return rango == 0 ? null : limitesPrecio[rango - 1];
+    }
+
+    private BigDecimal hasta(int rango) {
+        return rango == limitesPrecio.length ? null : limitesPrecio[rango];
+    }
+
+    private static Long categoriaDe(ProductoResponse producto) {
+        return producto == null || producto.categoria() == null ? null : producto.categoria().id();
+    }
+
+    // Una versión nueva empieza compartiendo todas las estructuras con la anterior y copia solo las que
+    // modifica, la primera vez que lo hace: un cambio de stock copia un bloque de productos y, si el
+    // producto entra o sale de stock, el bitset conStock
+    private final class Indice {
+        private Map<Long, Integer> posiciones;
+        private ProductoResponse[][] bloques;
+        private int siguientePosicion;
+        private BitSet vivos;
+        private BitSet conStock;
+        private TreeMap<Long, BitSet> categorias;
+        private Map<Long, String> nombresCategoria;
+        private BitSet[] precios;
+
+        // Estructuras ya copiadas por esta versión, se modifican sin afectar a la publicada
+        private final Set<Object> propias = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        Indice(int rangos) {
+            posiciones = propia(new HashMap<>());
+            bloques = propia(new ProductoResponse[0][]);
+            vivos = propia(new BitSet());
+            conStock = propia(new BitSet());
+            categorias = propia(new TreeMap<>());
+            nombresCategoria = propia(new HashMap<>());
+            precios = propia(new BitSet[rangos]);
+            for (int i = 0; i < rangos; i++) {
+                precios[i] = propia(new BitSet());
+            }
+        }
+
+        private Indice(Indice otro) {
+            posiciones = otro.posiciones;
+            bloques = otro.bloques;
+            siguientePosicion = otro.siguientePosicion;
+            vivos = otro.vivos;
+            conStock = otro.conStock;
+            categorias = otro.categorias;
+            nombresCategoria = otro.nombresCategoria;
+            precios = otro.precios;
+        }
+
+        Indice copiar() {
+            return new Indice(this);
+        }
+
+        // producto es null si ya no existe. La posición de un producto no cambia; la de uno borrado
+        // queda libre sin reutilizarse
+        void actualizar(Long id, ProductoResponse producto) {
+            Integer posicion = posiciones.get(id);
+            ProductoResponse anterior = posicion == null ? null : producto(posicion);
+            if (anterior == null && producto == null) {
+                return;
+            }
+            if (posicion == null) {
+                posicion = siguientePosicion++;
+                posiciones = escribible(posiciones, HashMap::new);
+                posiciones.put(id, posicion);
+            }
+            guardarProducto(posicion, producto);
+            vivos = marcar(vivos, posicion, producto != null);
+            conStock = marcar(conStock, posicion,
+                    producto != null && producto.cantidadDisponible() != null && producto.cantidadDisponible() > 0);
+
+            Long categoriaAnterior = categoriaDe(anterior);
+            Long categoriaNueva = categoriaDe(producto);
+            if (!Objects.equals(categoriaAnterior, categoriaNueva) && categoriaAnterior != null) {
+                quitarDeCategoria(categoriaAnterior, posicion);
+            }
+            if (categoriaNueva != null) {
+                agregarACategoria(categoriaNueva, producto.categoria().nombre(), posicion);
+            }
+
+            Integer rangoAnterior = rangoDe(anterior);
+            Integer rangoNuevo = rangoDe(producto);
+            if (!Objects.equals(rangoAnterior, rangoNuevo)) {
+                precios = escribible(precios, BitSet[]::clone);
+                if (rangoAnterior != null) {
+                    precios[rangoAnterior] = marcar(precios[rangoAnterior], posicion, false);
+                }
+                if (rangoNuevo != null) {
+                    precios[rangoNuevo] = marcar(precios[rangoNuevo], posicion, true);
+                }
+            }
+        }
+
+        private ProductoResponse producto(int posicion) {
+            return bloques[posicion / TAMANO_BLOQUE][posicion % TAMANO_BLOQUE];
+        }
+
+        private void guardarProducto(int posicion, ProductoResponse producto) {
+            int bloque = posicion / TAMANO_BLOQUE;
+            bloques = escribible(bloques, ProductoResponse[][]::clone);
+            if (bloque >= bloques.length) {
+                bloques = propia(Arrays.copyOf(bloques, bloque + 1));
+                bloques[bloque] = propia(new ProductoResponse[TAMANO_BLOQUE]);
+            }
+            bloques[bloque] = escribible(bloques[bloque], ProductoResponse[]::clone);
+            bloques[bloque][posicion % TAMANO_BLOQUE] = producto;
+        }
+
+        private void agregarACategoria(Long id, String nombre, int posicion) {
+            BitSet bits = categorias.get(id);
+            BitSet marcados = marcar(bits == null ? propia(new BitSet()) : bits, posicion, true);
+            if (marcados != bits) {
+                categorias = escribible(categorias, TreeMap::new);
+                categorias.put(id, marcados);
+            }
+            if (!Objects.equals(nombresCategoria.get(id), nombre)) {
+                nombresCategoria = escribible(nombresCategoria, HashMap::new);
+                nombresCategoria.put(id, nombre);
+            }
+        }
+
+        private void quitarDeCategoria(Long id, int posicion) {
+            BitSet bits = marcar(categorias.get(id), posicion, false);
+            categorias = escribible(categorias, TreeMap::new);
+            if (bits.isEmpty()) {
+                categorias.remove(id);
+                nombresCategoria = escribible(nombresCategoria, HashMap::new);
+                nombresCategoria.remove(id);
+            } else {
+                categorias.put(id, bits);
+            }
+        }
+
+        // Devuelve el mismo bitset si el bit ya tenía ese valor, o una copia propia modificada
+        private BitSet marcar(BitSet bits, int posicion, boolean valor) {
+            if (bits.get(posicion) == valor) {
+                return bits;
+            }
+            BitSet escribible = escribible(bits, original -> (BitSet) original.clone());
+            escribible.set(posicion, valor);
+            return escribible;
+        }
+
+        private <T> T escribible(T actual, UnaryOperator<T> copiar) {
+            return propias.contains(actual) ? actual : propia(copiar.apply(actual));
+        }
+
+        private <T> T propia(T estructura) {
+            propias.add(estructura);
+            return estructura;
+        }
+
+        BitSet porCategorias(List<Long> ids) {
+            if (ids == null || ids.isEmpty()) {
+                return null;
+            }
+            BitSet union = new BitSet();
+            for (Long id : ids) {
+                BitSet bits = categorias.get(id);
+                if (bits != null) {
+                    union.or(bits);
+                }
+            }
+            return union;
+        }
+
+        // Los rangos completamente dentro de [minimo, maximo] entran enteros; en los de los bordes se
+        // compara el monto de cada producto
+        BitSet porPrecio(BigDecimal minimo, BigDecimal maximo) {
+            BitSet resultado = new BitSet();
+            for (int rango = 0; rango < precios.length; rango++) {
+                BigDecimal desde = desde(rango);
+                BigDecimal hasta = hasta(rango);
+                boolean fuera = (maximo != null && desde != null && desde.compareTo(maximo) > 0)
+                        || (minimo != null && hasta != null && hasta.compareTo(minimo) <= 0);
+                if (fuera) {
+                    continue;
+                }
+                boolean completo = (minimo == null || (desde != null && desde.compareTo(minimo) >= 0))
+                        && (maximo == null || (hasta != null && hasta.compareTo(maximo) <= 0));
+                if (completo) {
+                    resultado.or(precios[rango]);
+                    continue;
+                }
+                BitSet bits = precios[rango];
+                for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+                    BigDecimal monto = producto(i).monto();
+                    if ((minimo == null || monto.compareTo(minimo) >= 0) && (maximo == null || monto.compareTo(maximo) <= 0)) {
+                        resultado.set(i);
+                    }
+                }
+            }
+            return resultado;
+        }
+
+        List<FacetasResponse.Categoria> contarCategorias(BitSet base) {
+            List<FacetasResponse.Categoria> conteos = new ArrayList<>();
+            categorias.forEach((id, bits) -> {
+                long cantidad = interseccion(base, bits).cardinality();
+                if (cantidad > 0) {
+                    conteos.add(new FacetasResponse.Categoria(id, nombresCategoria.get(id), cantidad));
+                }
+            });
+            return conteos;
+        }
+
+        List<FacetasResponse.RangoPrecio> contarPrecios(BitSet base) {
+            List<FacetasResponse.RangoPrecio> conteos = new ArrayList<>(precios.length);
+            for (int rango = 0; rango < precios.length; rango++) {
+                conteos.add(new FacetasResponse.RangoPrecio(desde(rango), hasta(rango),
+                        interseccion(base, precios[rango]).cardinality()));
+            }
+            return conteos;
+        }
+
+        // Las posiciones siguen el orden de alta, que al cargar es el de la base de datos
+        PageResponse<ProductoResponse> pagina(BitSet resultado, Pageable pageable) {
+            int total = resultado.cardinality();
+            long saltar = pageable.getOffset();
+            List<ProductoResponse> contenido = new ArrayList<>(pageable.getPageSize());
+            for (int i = resultado.nextSetBit(0); i >= 0 && contenido.size() < pageable.getPageSize(); i = resultado.nextSetBit(i + 1)) {
+                if (saltar > 0) {
+                    saltar--;
+                } else {
+                    contenido.add(producto(i));
+                }
+            }
+            int totalPages = (total + pageable.getPageSize() - 1) / pageable.getPageSize();
+            return new PageResponse<>(contenido, pageable.getPageNumber(), pageable.getPageSize(), total, totalPages);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.deportes.api.service.impl;
+
+import com.deportes.api.config.LruCache;
+import com.deportes.api.entity.ClaveIdempotencia;
+import com.deportes.api.records.RespuestaIdempotente;
+import com.deportes.api.repository.ClaveIdempotenciaRepository;
+import com.deportes.api.service.IdempotenciaService;
+import com.deportes.api.service.IdempotenciaService.Reserva.Estado;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Las respuestas ya confirmadas se sirven desde memoria; la tabla respalda la cache entre reinicios
+// y entre instancias. La fila se inserta antes de procesar la petición, así que la restricción única
+// (usuario_id, clave) garantiza que solo una petición con la misma clave llegue a ejecutarse
+@Service
+public class IdempotenciaServiceImpl implements IdempotenciaService {
+    private static final long LIMPIEZA_INTERVALO_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private final ClaveIdempotenciaRepository claveRepository;
+    private final LruCache<String, RespuestaIdempotente> respuestas;
+    private final long ttlMillis;
+    private final long bloqueoMillis;
+    private final AtomicLong proximaLimpieza = new AtomicLong();
+
+    public IdempotenciaServiceImpl(ClaveIdempotenciaRepository claveRepository,
+                                   @Value("${app.idempotency.cache-size}") int cacheSize,
+                                   @Value("${app.idempotency.ttl-hours}") long ttlHoras,
+                                   @Value("${app.idempotency.lock-seconds}") long bloqueoSegundos) {
+        this.claveRepository = claveRepository;
+        this.respuestas = new LruCache<>(cacheSize);
+        this.ttlMillis = TimeUnit.HOURS.toMillis(ttlHoras);
+        this.bloqueoMillis = TimeUnit.SECONDS.toMillis(bloqueoSegundos);
+    }
+
+    @Override
+    public Reserva reservar(Long usuarioId, String clave, String peticion) {
+        RespuestaIdempotente guardada = respuestas.get(cacheKey(usuarioId, clave));
+        if (guardada != null) {
+            return new Reserva(Estado.COMPLETADA, guardada);
+        }
+
+        long ahora = System.currentTimeMillis();
+        Optional<ClaveIdempotencia> existente = claveRepository.findByUsuarioIdAndClave(usuarioId, clave);
+        if (existente.isPresent()) {
+            ClaveIdempotencia fila = existente.get();
+            if (toMillis(fila.getExpiracion()) > ahora) {
+                if (fila.getEstado() == null) {
+                    return new Reserva(Estado.EN_CURSO, null);
+                }
+                RespuestaIdempotente respuesta = new RespuestaIdempotente(fila.getPeticion(), fila.getEstado(),
+                        fila.getContentType(), fila.getLocation(), fila.getCuerpo());
+                respuestas.put(cacheKey(usuarioId, clave), respuesta, toMillis(fila.getExpiracion()));
+                return new Reserva(Estado.COMPLETADA, respuesta);
+            }
+            // Respuesta vencida o petición abandonada por una instancia que se detuvo
+            claveRepository.deleteByUsuarioIdAndClave(usuarioId, clave);
+        }
+
+        try {
+            claveRepository.saveAndFlush(ClaveIdempotencia.builder()
+                    .usuarioId(usuarioId)
+                    .clave(clave)
+                    .peticion(peticion)
+                    .expiracion(toDateTime(ahora + bloqueoMillis))
+                    .build());
+        } catch (DataIntegrityViolationException e) {
+            // Otra petición con la misma clave insertó la fila primero
+            return new Reserva(Estado.EN_CURSO, null);
+        }
+        return new Reserva(Estado.RESERVADA, null);
+    }
+
+    @Override
+    public void completar(Long usuarioId, String clave, RespuestaIdempotente respuesta) {
+        long expiracion = System.currentTimeMillis() + ttlMillis;
+        claveRepository.findByUsuarioIdAndClave(usuarioId, clave).ifPresent(fila -> {
+            fila.setEstado(respuesta.estado());
+            fila.setContentType(respuesta.contentType());
+            fila.setLocation(respuesta.location());
+            fila.setCuerpo(respuesta.cuerpo());
+            fila.setExpiracion(toDateTime(expiracion));
+            claveRepository.save(fila);
+        });
+        respuestas.put(cacheKey(usuarioId, clave), respuesta, expiracion);
+        limpiarVencidas();
+    }
+
+    // Las respuestas con error no se guardan, el cliente puede reintentar con la misma clave
+    @Override
+    public void liberar(Long usuarioId, String clave) {
+        claveRepository.deleteByUsuarioIdAndClave(usuarioId, clave);
+    }
+
+    private void limpiarVencidas() {
+        long ahora = System.currentTimeMillis();
+        long proxima = proximaLimpieza.get();
+        if (ahora >= proxima && proximaLimpieza.compareAndSet(proxima, ahora + LIMPIEZA_INTERVALO_MILLIS)) {
+            claveRepository.deleteExpired(LocalDateTime.now());
+        }
+    }
+
+    private static String cacheKey(Long usuarioId, String clave) {
+        return usuarioId + ":" + clave;
+    }
+
+    private static long toMillis(LocalDateTime fecha) {
+        return fecha.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static LocalDateTime toDateTime(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    }
+}
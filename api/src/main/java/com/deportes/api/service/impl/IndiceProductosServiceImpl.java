@@ -0,0 +1,161 @@
+package com.deportes.api.service.impl;
+
+import com.deportes.api.event.CatalogoModificadoEvent;
+import com.deportes.api.records.PageResponse;
+import com.deportes.api.records.ProductoResponse;
+import com.deportes.api.repository.ProductoRepository;
+import com.deportes.api.service.IndiceProductosService;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Índice invertido de trigramas sobre la descripción y la categoría de cada producto. El texto se
+// normaliza sin acentos ni mayúsculas, así "futbol" encuentra "Pelota de fútbol" sin ir a la base de datos.
+// Se carga al arrancar y se actualiza por producto cuando se confirma un cambio, en esta instancia o en otra
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class IndiceProductosServiceImpl implements IndiceProductosService {
+    // Fracción mínima de trigramas de la búsqueda que debe contener un producto; tolera una letra de más o de menos
+    private static final double COINCIDENCIA_MINIMA = 0.5;
+
+    private final ProductoRepository productoRepository;
+
+    private final Map<Long, Documento> documentos = new ConcurrentHashMap<>();
+    private final Map<String, Set<Long>> postings = new ConcurrentHashMap<>();
+    private final ActualizacionesCatalogo actualizaciones = new ActualizacionesCatalogo(this::aplicar);
+
+    @PostConstruct
+    void init() {
+        productoRepository.findAllResponses().forEach(this::indexar);
+        log.info("Índice de búsqueda cargado con {} productos y {} trigramas", documentos.size(), postings.size());
+    }
+
+    @Override
+    public PageResponse<ProductoResponse> buscar(String texto, Pageable pageable) {
+        List<String> terminos = TextoBusqueda.tokenizar(texto);
+        Set<String> trigramas = trigramas(terminos);
+        if (trigramas.isEmpty()) {
+            return pagina(List.of(), pageable);
+        }
+
+        Map<Long, Integer> coincidencias = new HashMap<>();
+        for (String trigrama : trigramas) {
+            Set<Long> ids = postings.get(trigrama);
+            if (ids != null) {
+                ids.forEach(id -> coincidencias.merge(id, 1, Integer::sum));
+            }
+        }
+
+        List<Resultado> resultados = new ArrayList<>();
+        coincidencias.forEach((id, cantidad) -> {
+            Documento documento = documentos.get(id);
+            double coincidencia = (double) cantidad / trigramas.size();
+            if (documento == null || coincidencia < COINCIDENCIA_MINIMA
+                    || documento.producto().cantidadDisponible() == null
+                    || documento.producto().cantidadDisponible() <= 0) {
+                return;
+            }
+            resultados.add(new Resultado(documento.producto(), coincidencia + documento.bonificacion(terminos)));
+        });
+        resultados.sort(Comparator.comparingDouble(Resultado::puntaje).reversed()
+                .thenComparing(resultado -> resultado.producto().id()));
+        return pagina(resultados.stream().map(Resultado::producto).toList(), pageable);
+    }
+
+    // Los productos modificados se vuelven a leer una vez confirmados; los que ya no existen salen del índice.
+    // Corre antes que el cambio de versión del catálogo para que el ETag nuevo no acompañe resultados viejos
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener
+    public void onCatalogoModificado(CatalogoModificadoEvent event) {
+        actualizaciones.modificados(event.productoIds());
+    }
+
+    // Se llama con el lock de actualizaciones tomado, ver ActualizacionesCatalogo
+    private void aplicar(Set<Long> ids) {
+        Set<Long> pendientes = new HashSet<>(ids);
+        productoRepository.findResponsesByIdIn(pendientes).forEach(producto -> {
+            indexar(producto);
+            pendientes.remove(producto.id());
+        });
+        pendientes.forEach(this::quitar);
+    }
+
+    // Las escrituras se serializan; las lecturas no se bloquean y pueden ver un producto a medio indexar
+    private synchronized void indexar(ProductoResponse producto) {
+        Documento anterior = documentos.get(producto.id());
+        String texto = producto.descripcion()
+                + (producto.categoria() == null ? "" : " " + producto.categoria().nombre());
+        List<String> terminos = TextoBusqueda.tokenizar(texto);
+        Set<String> trigramas = trigramas(terminos);
+        documentos.put(producto.id(), new Documento(producto, terminos, trigramas));
+        if (anterior != null) {
+            anterior.trigramas().stream()
+                    .filter(trigrama -> !trigramas.contains(trigrama))
+                    .forEach(trigrama -> quitarPosting(trigrama, producto.id()));
+        }
+        trigramas.forEach(trigrama -> postings.computeIfAbsent(trigrama, t -> ConcurrentHashMap.newKeySet()).add(producto.id()));
+    }
+
+    private synchronized void quitar(Long id) {
+        Documento anterior = documentos.remove(id);
+        if (anterior != null) {
+            anterior.trigramas().forEach(trigrama -> quitarPosting(trigrama, id));
+        }
+    }
+
+    private void quitarPosting(String trigrama, Long id) {
+        postings.computeIfPresent(trigrama, (t, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    // Cada término se delimita con '$' para que los trigramas de inicio y fin pesen en la coincidencia
+    private static Set<String> trigramas(List<String> terminos) {
+        Set<String> trigramas = new HashSet<>();
+        for (String termino : terminos) {
+            String delimitado = "$" + termino + "$";
+            for (int i = 0; i + 3 <= delimitado.length(); i++) {
+                trigramas.add(delimitado.substring(i, i + 3));
+            }
+        }
+        return trigramas;
+    }
+
+    private static PageResponse<ProductoResponse> pagina(List<ProductoResponse> resultados, Pageable pageable) {
+        int desde = (int) Math.min(pageable.getOffset(), resultados.size());
+        int hasta = Math.min(desde + pageable.getPageSize(), resultados.size());
+        int totalPages = (resultados.size() + pageable.getPageSize() - 1) / pageable.getPageSize();
+        return new PageResponse<>(resultados.subList(desde, hasta), pageable.getPageNumber(), pageable.getPageSize(),
+                resultados.size(), totalPages);
+    }
+
+    private record Documento(ProductoResponse producto, List<String> terminos, Set<String> trigramas) {
+
+        // Suma medio punto por cada término buscado que coincide completo o como prefijo de una palabra
+        double bonificacion(List<String> buscados) {
+            long prefijos = buscados.stream()
+                    .filter(buscado -> terminos.stream().anyMatch(termino -> termino.startsWith(buscado)))
+                    .count();
+            return 0.5 * prefijos / buscados.size();
+        }
+    }
+
+    private record Resultado(ProductoResponse producto, double puntaje) {
+    }
+}
@@ -0,0 +1,259 @@
+package com.deportes.api.service.impl;
+
+import com.deportes.api.event.ProductosModificadosEvent;
+import com.deportes.api.exception.CustomValidationException;
+import com.deportes.api.records.VentaProducto;
+import com.deportes.api.service.InventarioCalienteService;
+import com.deportes.api.service.VentasService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Inventario en memoria para productos con mucha demanda puntual (lanzamientos, ofertas).
+// El checkout reserva contra contadores atómicos en lugar de bloquear la fila del producto, y un hilo
+// de fondo aplica a productos los descuentos pendientes agrupados en un único UPDATE por ciclo.
+//
+// Los items de orden de estos productos se guardan con stock_aplicado = false; el hilo los marca al
+// descontar el stock en la misma transacción. Al arrancar, el disponible se reconstruye como el stock de
+// la base menos lo pendiente, así que un reinicio no pierde reservas. Los contadores viven en el proceso:
+// el modo solo es seguro con una única instancia de la API.
+@Slf4j
+@Service
+public class InventarioCalienteServiceImpl implements InventarioCalienteService {
+    private static final String DISPONIBLE_SQL = """
+            SELECT p.id, p.cantidad_disponible - COALESCE(SUM(i.cantidad), 0) AS disponible
+            FROM productos p
+            LEFT JOIN items_orden i ON i.producto_id = p.id AND i.stock_aplicado = FALSE
+            WHERE p.id IN (:ids)
+            GROUP BY p.id, p.cantidad_disponible
+            """;
+    private static final String PENDIENTES_SQL = """
+            SELECT i.id, i.producto_id, i.cantidad, i.precio_unitario, o.fecha_creacion
+            FROM items_orden i
+            JOIN ordenes o ON o.id = i.orden_id
+            WHERE i.stock_aplicado = FALSE
+            ORDER BY i.id
+            LIMIT :limite
+            """;
+    private static final String STOCK_SQL = "SELECT id, cantidad_disponible FROM productos WHERE id IN (:ids) FOR UPDATE";
+    private static final String MARCAR_APLICADOS_SQL = "UPDATE items_orden SET stock_aplicado = TRUE WHERE id IN (:ids)";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final VentasService ventasService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final List<Long> productosCalientes;
+    private final long intervaloMillis;
+    private final int loteMaximo;
+    private final Counter unidadesRecortadas;
+
+    private Map<Long, AtomicLong> disponibles = Map.of();
+    private ScheduledExecutorService escritor;
+
+    public InventarioCalienteServiceImpl(NamedParameterJdbcTemplate jdbcTemplate,
+                                         VentasService ventasService,
+                                         ApplicationEventPublisher eventPublisher,
+                                         PlatformTransactionManager transactionManager,
+                                         MeterRegistry registry,
+                                         @Value("${app.inventory.hot-products:}") List<Long> productosCalientes,
+                                         @Value("${app.inventory.flush-interval-ms}") long intervaloMillis,
+                                         @Value("${app.inventory.flush-batch-size}") int loteMaximo) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.ventasService = ventasService;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.productosCalientes = productosCalientes;
+        this.intervaloMillis = intervaloMillis;
+        this.loteMaximo = loteMaximo;
+        this.unidadesRecortadas = Counter.builder("inventory.hot.clamped.units").register(registry);
+    }
+
+    @PostConstruct
+    void init() {
+        // Pendientes de una ejecución anterior, también de productos que ya no están en la lista
+        aplicarPendientes();
+        if (productosCalientes.isEmpty()) {
+            return;
+        }
+        Map<Long, AtomicLong> contadores = new HashMap<>();
+        jdbcTemplate.query(DISPONIBLE_SQL, new MapSqlParameterSource("ids", productosCalientes),
+                rs -> {
+                    contadores.put(rs.getLong("id"), new AtomicLong(rs.getLong("disponible")));
+                });
+        disponibles = Map.copyOf(contadores);
+        log.info("Inventario en memoria activo para los productos {}", disponibles.keySet());
+
+        escritor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "inventario-caliente");
+            thread.setDaemon(true);
+            return thread;
+        });
+        escritor.scheduleWithFixedDelay(this::aplicarPendientes, intervaloMillis, intervaloMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (escritor == null) {
+            return;
+        }
+        escritor.shutdown();
+        try {
+            escritor.awaitTermination(intervaloMillis * 10, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Último vaciado para dejar productos al día; lo que quede se recupera al arrancar
+        aplicarPendientes();
+    }
+
+    @Override
+    public boolean esCaliente(Long productoId) {
+        return disponibles.containsKey(productoId);
+    }
+
+    // Reserva todo o nada. Si la transacción del checkout no llega a confirmarse, las unidades vuelven
+    // al contador
+    @Override
+    public void reservar(Map<Long, Integer> cantidades) {
+        if (cantidades.isEmpty()) {
+            return;
+        }
+        Map<Long, Integer> reservadas = new LinkedHashMap<>();
+        for (Map.Entry<Long, Integer> entrada : cantidades.entrySet()) {
+            if (!intentarReservar(entrada.getKey(), entrada.getValue())) {
+                liberar(reservadas);
+                throw new CustomValidationException("Stock insuficiente para el producto con id: " + entrada.getKey());
+            }
+            reservadas.put(entrada.getKey(), entrada.getValue());
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        liberar(reservadas);
+                    }
+                }
+            });
+        }
+    }
+
+    // Un cambio manual del stock se traslada al contador como diferencia, así no pisa reservas en curso
+    @Override
+    public void ajustarStock(Long productoId, long diferencia) {
+        AtomicLong disponible = disponibles.get(productoId);
+        if (disponible != null && diferencia != 0) {
+            disponible.addAndGet(diferencia);
+        }
+    }
+
+    @Override
+    public Long getDisponible(Long productoId) {
+        AtomicLong disponible = disponibles.get(productoId);
+        return disponible == null ? null : Math.max(0, disponible.get());
+    }
+
+    private boolean intentarReservar(Long productoId, int cantidad) {
+        AtomicLong disponible = disponibles.get(productoId);
+        long actual;
+        do {
+            actual = disponible.get();
+            if (actual < cantidad) {
+                return false;
+            }
+        } while (!disponible.compareAndSet(actual, actual - cantidad));
+        return true;
+    }
+
+    private void liberar(Map<Long, Integer> reservadas) {
+        reservadas.forEach((productoId, cantidad) -> disponibles.get(productoId).addAndGet(cantidad));
+    }
+
+    // Agrupa los items pendientes por producto y los descuenta con un único UPDATE, marcándolos como
+    // aplicados en la misma transacción
+    void aplicarPendientes() {
+        try {
+            Integer aplicados;
+            do {
+                aplicados = transactionTemplate.execute(status -> aplicarLote());
+            } while (aplicados != null && aplicados == loteMaximo);
+        } catch (RuntimeException e) {
+            log.error("No se pudo aplicar el stock pendiente del inventario en memoria", e);
+        }
+    }
+
+    private int aplicarLote() {
+        List<Long> items = new ArrayList<>();
+        Map<Long, Long> descuentos = new LinkedHashMap<>();
+        Map<LocalDate, Map<Long, VentaProducto>> ventasPorDia = new HashMap<>();
+        jdbcTemplate.query(PENDIENTES_SQL, new MapSqlParameterSource("limite", loteMaximo), rs -> {
+            long productoId = rs.getLong("producto_id");
+            long cantidad = rs.getLong("cantidad");
+            BigDecimal importe = rs.getBigDecimal("precio_unitario").multiply(BigDecimal.valueOf(cantidad));
+            items.add(rs.getLong("id"));
+            descuentos.merge(productoId, cantidad, Long::sum);
+            ventasPorDia.computeIfAbsent(rs.getTimestamp("fecha_creacion").toLocalDateTime().toLocalDate(), dia -> new HashMap<>())
+                    .merge(productoId, new VentaProducto(productoId, cantidad, importe),
+                            (a, b) -> new VentaProducto(productoId, a.unidades() + b.unidades(), a.importe().add(b.importe())));
+        });
+        if (items.isEmpty()) {
+            return 0;
+        }
+
+        StringBuilder casos = new StringBuilder("CASE id");
+        MapSqlParameterSource parametros = new MapSqlParameterSource();
+        int i = 0;
+        for (Map.Entry<Long, Long> entrada : descuentos.entrySet()) {
+            casos.append(" WHEN :id").append(i).append(" THEN :cantidad").append(i);
+            parametros.addValue("id" + i, entrada.getKey());
+            parametros.addValue("cantidad" + i, entrada.getValue());
+            i++;
+        }
+        casos.append(" END");
+        parametros.addValue("ids", descuentos.keySet());
+
+        // GREATEST evita un stock negativo, pero si llega a actuar la base tenía menos de lo que el contador
+        // reservó (un cambio de stock por fuera de la API o de otra instancia): esas unidades ya se vendieron
+        // sin respaldo y hay que enterarse
+        jdbcTemplate.query(STOCK_SQL, new MapSqlParameterSource("ids", descuentos.keySet()), rs -> {
+            long productoId = rs.getLong("id");
+            long stock = rs.getLong("cantidad_disponible");
+            long descuento = descuentos.get(productoId);
+            if (stock < descuento) {
+                log.warn("Stock del producto {} recortado a 0: había {} y se descontaban {}", productoId, stock, descuento);
+                unidadesRecortadas.increment(descuento - stock);
+            }
+        });
+        jdbcTemplate.update("UPDATE productos SET cantidad_disponible = GREATEST(cantidad_disponible - "
+                + casos + ", 0) WHERE id IN (:ids)", parametros);
+        ventasPorDia.forEach((dia, ventas) -> ventasService.registrarVentas(dia, ventas.values()));
+        jdbcTemplate.update(MARCAR_APLICADOS_SQL, new MapSqlParameterSource("ids", items));
+        // El stock visible del catálogo cambió, la cache y los ETag se actualizan tras el commit
+        eventPublisher.publishEvent(new ProductosModificadosEvent(List.copyOf(descuentos.keySet())));
+        return items.size();
+    }
+}
@@ -0,0 +1,114 @@
+package com.deportes.api.service.impl;
+
+import com.deportes.api.entity.Orden;
+import com.deportes.api.repository.OrdenRepository;
+import com.deportes.api.service.OrdenExportService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+// Exporta las órdenes de un rango recorriendo un cursor de solo avance. Cada fila se escribe y se
+// separa de la sesión antes de leer la siguiente, así la memoria no depende del tamaño del rango
+@Service
+@RequiredArgsConstructor
+public class OrdenExportServiceImpl implements OrdenExportService {
+    private static final String CSV_HEADER = "id,numero_orden,fecha_creacion,usuario_id,total,direccion_envio,estado\n";
+    private static final int FLUSH_CADA = 500;
+
+    private final OrdenRepository ordenRepository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+
+    @Transactional
+    public void exportar(LocalDateTime desde, LocalDateTime hasta, Formato formato, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        JsonGenerator json = null;
+        if (formato == Formato.CSV) {
+            writer.write(CSV_HEADER);
+        } else {
+            json = objectMapper.getFactory().createGenerator(writer);
+            json.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+        }
+
+        try (Stream<Orden> ordenes = ordenRepository.streamByDateRange(desde, hasta)) {
+            Iterator<Orden> iterator = ordenes.iterator();
+            int filas = 0;
+            while (iterator.hasNext()) {
+                Orden orden = iterator.next();
+                if (json == null) {
+                    escribirCsv(writer, orden);
+                } else {
+                    escribirJson(json, orden);
+                }
+                entityManager.detach(orden);
+                if (++filas % FLUSH_CADA == 0) {
+                    if (json != null) {
+                        json.flush();
+                    }
+                    writer.flush();
+                }
+            }
+        }
+
+        if (json != null) {
+            json.flush();
+        }
+        writer.flush();
+    }
+
+    private void escribirCsv(Writer writer, Orden orden) throws IOException {
+        writer.write(String.valueOf(orden.getId()));
+        writer.write(',');
+        writer.write(csv(orden.getNumeroOrden()));
+        writer.write(',');
+        writer.write(String.valueOf(orden.getFechaCreacion()));
+        writer.write(',');
+        // getId sobre el proxy del usuario no lo inicializa, no hay consulta extra por fila
+        writer.write(orden.getUsuario() == null ? "" : String.valueOf(orden.getUsuario().getId()));
+        writer.write(',');
+        writer.write(orden.getTotal() == null ? "" : orden.getTotal().toPlainString());
+        writer.write(',');
+        writer.write(csv(orden.getDireccionEnvio()));
+        writer.write(',');
+        writer.write(orden.getEstado() == null ? "" : orden.getEstado().name());
+        writer.write('\n');
+    }
+
+    private void escribirJson(JsonGenerator json, Orden orden) throws IOException {
+        json.writeStartObject();
+        json.writeNumberField("id", orden.getId());
+        json.writeStringField("numeroOrden", orden.getNumeroOrden());
+        json.writeStringField("fechaCreacion", String.valueOf(orden.getFechaCreacion()));
+        if (orden.getUsuario() != null) {
+            json.writeNumberField("usuarioId", orden.getUsuario().getId());
+        }
+        json.writeNumberField("total", orden.getTotal());
+        json.writeStringField("direccionEnvio", orden.getDireccionEnvio());
+        json.writeStringField("estado", orden.getEstado() == null ? null : orden.getEstado().name());
+        json.writeEndObject();
+        json.writeRaw('\n');
+    }
+
+    private static String csv(String valor) {
+        if (valor == null) {
+            return "";
+        }
+        if (valor.indexOf(',') < 0 && valor.indexOf('"') < 0 && valor.indexOf('\n') < 0 && valor.indexOf('\r') < 0) {
+            return valor;
+        }
+        return '"' + valor.replace("\"", "\"\"") + '"';
+    }
+}
@@ -1,37 +1,60 @@
 package com.deportes.api.service.impl;
 
+import com.deportes.api.config.NumeroOrdenGenerator;
+import com.deportes.api.entity.Carrito;
 import com.deportes.api.entity.ItemCarrito;
-import com.deportes.api.entity.ItemOrden;
 import com.deportes.api.entity.Orden;
 import com.deportes.api.entity.Producto;
 import com.deportes.api.entity.Usuario;
 import com.deportes.api.exception.CustomValidationException;
+import com.deportes.api.records.CursorPage;
+import com.deportes.api.records.ItemOrdenResponse;
+import com.deportes.api.records.OrdenResponse;
+import com.deportes.api.records.PageResponse;
+import com.deportes.api.records.VentaProducto;
 import com.deportes.api.repository.ItemOrdenRepository;
 import com.deportes.api.repository.OrdenRepository;
 import com.deportes.api.service.CarritoService;
+import com.deportes.api.service.InventarioCalienteService;
 import com.deportes.api.service.OrdenService;
 import com.deportes.api.service.ProductoService;
-import com.deportes.api.service.UserService;
+import com.deportes.api.service.VentasService;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.rest.webmvc.ResourceNotFoundException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
 public class OrdenServiceImpl implements OrdenService {
+    private static final String INSERT_ITEM_ORDEN_SQL = """
+            INSERT INTO items_orden (orden_id, producto_id, cantidad, precio_unitario, stock_aplicado)
+            VALUES (:ordenId, :productoId, :cantidad, :precioUnitario, :stockAplicado)
+            """;
+
     private final OrdenRepository ordenRepository;
     private final ItemOrdenRepository itemOrdenRepository;
     private final CarritoService carritoService;
     private final ProductoService productoService;
-    private final UserService usuarioService;
+    private final InventarioCalienteService inventarioCaliente;
+    private final VentasService ventasService;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final NumeroOrdenGenerator numeroOrdenGenerator;
 
     @Transactional
     public List<Orden> findAll() {
@@ -39,8 +62,63 @@ public class OrdenServiceImpl implements OrdenService {
     }
 
     @Transactional
-    public Page<Orden> findByUsuarioId(Long usuarioId, Pageable pageable) {
-        return ordenRepository.findByUsuarioId(usuarioId, pageable);
+    public PageResponse<OrdenResponse> findByUsuarioId(Long usuarioId, Pageable pageable) {
+        return findByUsuarioId(usuarioId, pageable, false);
+    }
+
+    @Transactional
+    public PageResponse<OrdenResponse> findByUsuarioId(Long usuarioId, Pageable pageable, boolean conItems) {
+        PageResponse<OrdenResponse> pagina = PageResponse.from(ordenRepository.findResponsesByUsuarioId(usuarioId, pageable));
+        if (!conItems) {
+            return pagina;
+        }
+        return new PageResponse<>(agregarItems(pagina.content()), pagina.number(), pagina.size(),
+                pagina.totalElements(), pagina.totalPages());
+    }
+
+    @Transactional
+    public OrdenResponse findDetalleByNumeroOrden(Long usuarioId, String numeroOrden) {
+        OrdenResponse orden = ordenRepository.findResponseByNumeroOrdenAndUsuarioId(numeroOrden, usuarioId)
+                .orElseThrow(() -> new ResourceNotFoundException("Orden no encontrada con número: " + numeroOrden));
+        return agregarItems(List.of(orden)).get(0);
+    }
+
+    @Transactional
+    public CursorPage<OrdenResponse> findByUsuarioIdCursor(Long usuarioId, String cursor, int size, boolean conItems) {
+        if (size < 1 || size > 100) {
+            throw new CustomValidationException("El tamaño de página debe estar entre 1 y 100");
+        }
+        // Se pide una fila de más para saber si hay página siguiente sin contar
+        Limit limit = Limit.of(size + 1);
+        List<OrdenResponse> ordenes;
+        if (cursor == null || cursor.isBlank()) {
+            ordenes = ordenRepository.findFirstResponsesByUsuarioId(usuarioId, limit);
+        } else {
+            OrdenCursor posicion = OrdenCursor.decode(cursor);
+            ordenes = ordenRepository.findResponsesByUsuarioIdAfter(usuarioId, posicion.fecha(), posicion.id(), limit);
+        }
+
+        if (ordenes.size() <= size) {
+            return new CursorPage<>(conItems ? agregarItems(ordenes) : ordenes, null, false);
+        }
+        List<OrdenResponse> pagina = ordenes.subList(0, size);
+        OrdenResponse ultima = pagina.get(size - 1);
+        return new CursorPage<>(conItems ? agregarItems(pagina) : pagina,
+                new OrdenCursor(ultima.fechaCreacion(), ultima.id()).encode(), true);
+    }
+
+    // Carga los items de todas las órdenes con una sola consulta IN y los reparte por orden
+    private List<OrdenResponse> agregarItems(List<OrdenResponse> ordenes) {
+        if (ordenes.isEmpty()) {
+            return ordenes;
+        }
+        Map<Long, List<ItemOrdenResponse>> itemsPorOrden = new HashMap<>();
+        for (ItemOrdenResponse item : itemOrdenRepository.findResponsesByOrdenIdIn(ordenes.stream().map(OrdenResponse::id).toList())) {
+            itemsPorOrden.computeIfAbsent(item.ordenId(), id -> new ArrayList<>()).add(item);
+        }
+        return ordenes.stream()
+                .map(orden -> orden.withItems(itemsPorOrden.getOrDefault(orden.id(), List.of())))
+                .toList();
     }
 
     @Transactional
@@ -61,64 +139,84 @@ public class OrdenServiceImpl implements OrdenService {
                 .orElseThrow(() -> new ResourceNotFoundException("Orden no encontrada con número: " + numeroOrden));
     }
 
+    @Transactional
+    public boolean existeOrdenDeUsuario(String numeroOrden, Long usuarioId) {
+        return ordenRepository.existsByNumeroOrdenAndUsuarioId(numeroOrden, usuarioId);
+    }
+
     @Transactional
     public Orden crearOrdenDesdeCarrito(Long usuarioId, String direccionEnvio) {
-        Usuario usuario = usuarioService.findById(usuarioId);
-        List<ItemCarrito> itemsCarrito = carritoService.getItemsCarrito(usuarioId);
+        return crearOrdenDesdeCarrito(usuarioId, direccionEnvio, generarNumeroOrden());
+    }
+
+    @Transactional
+    public Orden crearOrdenDesdeCarrito(Long usuarioId, String direccionEnvio, String numeroOrden) {
+        // Carrito, items, productos y usuario llegan en una sola consulta
+        Carrito carrito = carritoService.findCarritoParaCheckout(usuarioId);
+        List<ItemCarrito> itemsCarrito = carrito.getItems();
 
         if (itemsCarrito.isEmpty()) {
             throw new IllegalStateException("No se puede crear una orden con un carrito vacío");
         }
 
-        // Verificar stock para todos los productos
+        // Verificar stock y calcular el total antes de escribir nada
+        BigDecimal total = BigDecimal.ZERO;
+        Map<Long, Integer> cantidades = new LinkedHashMap<>();
+        Map<Long, Integer> cantidadesCalientes = new LinkedHashMap<>();
         for (ItemCarrito item : itemsCarrito) {
             Producto producto = item.getProducto();
             if (!producto.tieneStock(item.getCantidad())) {
                 throw new CustomValidationException(
                         "Stock insuficiente para el producto: " + producto.getDescripcion());
             }
+            (inventarioCaliente.esCaliente(producto.getId()) ? cantidadesCalientes : cantidades)
+                    .merge(producto.getId(), item.getCantidad(), Integer::sum);
+            total = total.add(item.calcularSubtotal());
         }
 
-        // Crear nueva orden
+        // Los productos con inventario en memoria reservan contra su contador y la base se actualiza después.
+        // Para el resto, el descuento condicional es la comprobación definitiva: si otra compra se llevó
+        // el stock entre la lectura y este punto, falla aquí antes de escribir la orden
+        inventarioCaliente.reservar(cantidadesCalientes);
+        productoService.reducirStockEnLote(cantidades);
+
+        Usuario usuario = carrito.getUsuario();
+
+        // La orden se escribe una sola vez, ya con su total
         Orden orden = new Orden();
         orden.setUsuario(usuario);
-        orden.setTotal(BigDecimal.ZERO);
-        orden.setNumeroOrden(generarNumeroOrden());
+        orden.setTotal(total);
+        orden.setNumeroOrden(numeroOrden);
         orden.setFechaCreacion(LocalDateTime.now());
         orden.setDireccionEnvio(direccionEnvio != null ? direccionEnvio : usuario.getDireccionEnvio());
         orden.setEstado(Orden.EstadoOrden.PENDIENTE);
-
-        // Guardar orden para obtener ID
         orden = ordenRepository.save(orden);
 
-        // Transferir items del carrito a la orden y reducir stock
-        BigDecimal total = BigDecimal.ZERO;
-
-        for (ItemCarrito itemCarrito : itemsCarrito) {
-            Producto producto = itemCarrito.getProducto();
-
-            // Crear ítem de orden
-            ItemOrden itemOrden = new ItemOrden();
-            itemOrden.setOrden(orden);
-            itemOrden.setProducto(producto);
-            itemOrden.setCantidad(itemCarrito.getCantidad());
-            itemOrden.setPrecioUnitario(itemCarrito.getPrecioUnitario());
-
-            itemOrdenRepository.save(itemOrden);
-
-            // Reducir stock
-            productoService.reducirStock(producto.getId(), itemCarrito.getCantidad());
-
-            // Acumular total
-            total = total.add(itemOrden.calcularSubtotal());
+        // Los items se insertan en un único lote JDBC; IDENTITY impide que Hibernate los agrupe
+        SqlParameterSource[] filas = new SqlParameterSource[itemsCarrito.size()];
+        for (int i = 0; i < filas.length; i++) {
+            ItemCarrito item = itemsCarrito.get(i);
+            filas[i] = new MapSqlParameterSource()
+                    .addValue("ordenId", orden.getId())
+                    .addValue("productoId", item.getProducto().getId())
+                    .addValue("cantidad", item.getCantidad())
+                    .addValue("precioUnitario", item.getPrecioUnitario())
+                    .addValue("stockAplicado", !inventarioCaliente.esCaliente(item.getProducto().getId()));
         }
+        jdbcTemplate.batchUpdate(INSERT_ITEM_ORDEN_SQL, filas);
 
-        // Actualizar total de la orden
-        orden.setTotal(total);
-        orden = ordenRepository.save(orden);
+        // Acumulado diario de ventas; los productos con inventario en memoria los suma el hilo que aplica su stock
+        Map<Long, VentaProducto> ventas = new HashMap<>();
+        for (ItemCarrito item : itemsCarrito) {
+            Long productoId = item.getProducto().getId();
+            if (cantidades.containsKey(productoId)) {
+                ventas.merge(productoId, new VentaProducto(productoId, item.getCantidad(), item.calcularSubtotal()),
+                        (a, b) -> new VentaProducto(productoId, a.unidades() + b.unidades(), a.importe().add(b.importe())));
+            }
+        }
+        ventasService.registrarVentas(orden.getFechaCreacion().toLocalDate(), ventas.values());
 
-        // Vaciar carrito
-        carritoService.vaciarCarrito(usuarioId);
+        carritoService.vaciarCarrito(carrito);
 
         return orden;
     }
@@ -158,12 +256,28 @@ public class OrdenServiceImpl implements OrdenService {
         return ordenRepository.countByUsuarioId(usuarioId);
     }
 
-    private String generarNumeroOrden() {
-        // Formato: ORD-[año][mes][dia]-[UUID aleatorio corto]
-        LocalDateTime now = LocalDateTime.now();
-        String fecha = String.format("%d%02d%02d", now.getYear(), now.getMonthValue(), now.getDayOfMonth());
-        String randomPart = UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+    public String generarNumeroOrden() {
+        // Formato: ORD-[año][mes][dia]-[8 caracteres ordenados en el tiempo, ver NumeroOrdenGenerator]
+        return numeroOrdenGenerator.next();
+    }
+
+    // Posición de la última orden devuelta, viaja al cliente como texto opaco
+    private record OrdenCursor(LocalDateTime fecha, Long id) {
+
+        String encode() {
+            return Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString((fecha + "|" + id).getBytes(StandardCharsets.UTF_8));
+        }
 
-        return "ORD-" + fecha + "-" + randomPart;
+        static OrdenCursor decode(String cursor) {
+            try {
+                String valor = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separador = valor.indexOf('|');
+                return new OrdenCursor(LocalDateTime.parse(valor.substring(0, separador)),
+                        Long.parseLong(valor.substring(separador + 1)));
+            } catch (RuntimeException e) {
+                throw new CustomValidationException("Cursor de paginación inválido");
+            }
+        }
     }
 }
@@ -1,22 +1,91 @@
 package com.deportes.api.service.impl;
 
+import com.deportes.api.config.LruCache;
 import com.deportes.api.entity.Producto;
+import com.deportes.api.event.CatalogoModificadoEvent;
+import com.deportes.api.event.ProductosModificadosEvent;
+import com.deportes.api.exception.CustomValidationException;
+import com.deportes.api.records.CategoriaResponse;
+import com.deportes.api.records.PageResponse;
+import com.deportes.api.records.ProductoResponse;
 import com.deportes.api.repository.ProductoRepository;
+import com.deportes.api.service.CategoriaService;
+import com.deportes.api.service.IndiceProductosService;
+import com.deportes.api.service.InventarioCalienteService;
 import com.deportes.api.service.ProductoService;
+import com.deportes.api.service.SincronizacionCatalogoService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.transaction.Transactional;
-import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.rest.webmvc.ResourceNotFoundException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 @Service
-@RequiredArgsConstructor
 public class ProductoServiceImpl implements ProductoService {
+    private static final String REGISTRAR_ELIMINADO_SQL = "INSERT INTO productos_eliminados (producto_id) VALUES (:id)";
+
     private final ProductoRepository productoRepository;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final InventarioCalienteService inventarioCaliente;
+    private final IndiceProductosService indiceProductos;
+    private final CategoriaService categoriaService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // Versión del catálogo para los ETag y las claves de páginas en cache, compartida entre instancias
+    private final SincronizacionCatalogoService sincronizacion;
+
+    // Lecturas del catálogo en memoria. Los productos se invalidan uno a uno al modificarse; las páginas
+    // llevan la versión del catálogo en la clave y se descartan con cualquier cambio
+    private final LruCache<Long, ProductoEnCache> productos;
+    // Cambios aplicados por producto. Cada entrada guarda el valor que tenía antes de leer la base: si el
+    // producto cambió mientras tanto ya no coincide y la entrada no sirve, aunque se haya guardado después
+    // de invalidarla
+    private final Map<Long, Long> generaciones = new ConcurrentHashMap<>();
+    private final LruCache<String, PageResponse<ProductoResponse>> paginas;
+    private final long ttlMillis;
+
+    public ProductoServiceImpl(ProductoRepository productoRepository,
+                               NamedParameterJdbcTemplate jdbcTemplate,
+                               InventarioCalienteService inventarioCaliente,
+                               IndiceProductosService indiceProductos,
+                               CategoriaService categoriaService,
+                               ApplicationEventPublisher eventPublisher,
+                               SincronizacionCatalogoService sincronizacion,
+                               MeterRegistry registry,
+                               @Value("${app.catalog.cache.products-size}") int productosSize,
+                               @Value("${app.catalog.cache.pages-size}") int paginasSize,
+                               @Value("${app.catalog.cache.ttl-seconds}") long ttlSegundos) {
+        this.productoRepository = productoRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.inventarioCaliente = inventarioCaliente;
+        this.indiceProductos = indiceProductos;
+        this.categoriaService = categoriaService;
+        this.eventPublisher = eventPublisher;
+        this.sincronizacion = sincronizacion;
+        this.productos = new LruCache<>(productosSize);
+        this.paginas = new LruCache<>(paginasSize);
+        this.ttlMillis = TimeUnit.SECONDS.toMillis(ttlSegundos);
+        registrarMetricas(registry, "productos", productos);
+        registrarMetricas(registry, "paginas", paginas);
+    }
 
     @Transactional
     public List<Producto> findAll() {
@@ -24,13 +93,17 @@ public class ProductoServiceImpl implements ProductoService {
     }
 
     @Transactional
-    public Page<Producto> findAllAvailable(Pageable pageable) {
-        return productoRepository.findAllAvailable(pageable);
+    public PageResponse<ProductoResponse> findAllAvailable(Pageable pageable) {
+        String clave = "disponibles:" + pageable.getPageNumber() + ":" + pageable.getPageSize() + ":" + pageable.getSort();
+        return paginaEnCache(clave, () -> PageResponse.from(productoRepository.findAllAvailableResponses(pageable)));
     }
 
-    @Transactional
-    public Page<Producto> searchByDescripcion(String descripcion, Pageable pageable) {
-        return productoRepository.searchByDescripcion(descripcion, pageable);
+    // Se resuelve con el índice en memoria; sin texto devuelve el catálogo disponible
+    public PageResponse<ProductoResponse> searchByDescripcion(String descripcion, Pageable pageable) {
+        if (descripcion == null || descripcion.isBlank()) {
+            return findAllAvailable(pageable);
+        }
+        return indiceProductos.buscar(descripcion, pageable);
     }
 
     @Transactional
@@ -39,20 +112,46 @@ public class ProductoServiceImpl implements ProductoService {
                 .orElseThrow(() -> new ResourceNotFoundException("Producto no encontrado con id: " + id));
     }
 
+    @Transactional
+    public ProductoResponse findResponseById(Long id) {
+        long generacion = generaciones.getOrDefault(id, 0L);
+        ProductoEnCache enCache = productos.get(id);
+        ProductoResponse producto;
+        if (enCache != null && enCache.generacion() == generacion) {
+            producto = enCache.producto();
+        } else {
+            producto = productoRepository.findResponseById(id)
+                    .orElseThrow(() -> new ResourceNotFoundException("Producto no encontrado con id: " + id));
+            productos.put(id, new ProductoEnCache(generacion, producto), System.currentTimeMillis() + ttlMillis);
+        }
+        // En un producto con inventario en memoria la base va por detrás de las reservas; manda el contador
+        Long disponible = inventarioCaliente.getDisponible(id);
+        return disponible == null ? producto : producto.withCantidadDisponible(disponible.intValue());
+    }
+
+    @Transactional
+    public List<Producto> findAllById(Collection<Long> ids) {
+        return productoRepository.findAllById(ids);
+    }
+
     @Transactional
     public Producto save(Producto producto) {
-        return productoRepository.save(producto);
+        Producto guardado = productoRepository.save(producto);
+        marcarCatalogoModificado(List.of(guardado.getId()));
+        return guardado;
     }
 
     @Transactional
     public Producto update(Long id, Producto productoDetails) {
-        Producto producto = findById(id);
+        Producto producto = findByIdForUpdate(id);
 
+        trasladarCambioDeStock(id, producto.getCantidadDisponible(), productoDetails.getCantidadDisponible());
         producto.setDescripcion(productoDetails.getDescripcion());
         producto.setMonto(productoDetails.getMonto());
         producto.setCantidadDisponible(productoDetails.getCantidadDisponible());
         producto.setRutaImagen(productoDetails.getRutaImagen());
 
+        marcarCatalogoModificado(List.of(id));
         return productoRepository.save(producto);
     }
 
@@ -60,6 +159,9 @@ public class ProductoServiceImpl implements ProductoService {
     public void delete(Long id) {
         Producto producto = findById(id);
         productoRepository.delete(producto);
+        // Las otras instancias se enteran del borrado por este registro, ver SincronizacionCatalogoServiceImpl
+        jdbcTemplate.update(REGISTRAR_ELIMINADO_SQL, new MapSqlParameterSource("id", id));
+        marcarCatalogoModificado(List.of(id));
     }
 
     @Transactional
@@ -74,9 +176,11 @@ public class ProductoServiceImpl implements ProductoService {
 
     @Transactional
     public void actualizarStock(Long id, Integer cantidad) {
-        Producto producto = findById(id);
+        Producto producto = findByIdForUpdate(id);
+        trasladarCambioDeStock(id, producto.getCantidadDisponible(), cantidad);
         producto.setCantidadDisponible(cantidad);
         productoRepository.save(producto);
+        marcarCatalogoModificado(List.of(id));
     }
 
     @Transactional
@@ -87,20 +191,126 @@ public class ProductoServiceImpl implements ProductoService {
 
     @Transactional
     public void reducirStock(Long id, Integer cantidad) {
-        Producto producto = findById(id);
-        producto.reducirStock(cantidad);
-        productoRepository.save(producto);
+        // La condición de stock va en el propio UPDATE, dos compras concurrentes no pueden dejarlo negativo
+        if (productoRepository.reducirStockSiDisponible(id, cantidad) == 0) {
+            Producto producto = findById(id);
+            throw new CustomValidationException("Stock insuficiente para el producto: " + producto.getDescripcion());
+        }
+        marcarCatalogoModificado(List.of(id));
+    }
+
+    // Descuenta el stock de todos los productos con una sola sentencia:
+    // UPDATE ... SET cantidad_disponible = cantidad_disponible - CASE id WHEN ... END
+    // WHERE id IN (...) AND cantidad_disponible >= CASE id WHEN ... END
+    // Si alguna fila no cumple la condición se lanza la excepción y la transacción deshace el resto
+    @Transactional
+    public void reducirStockEnLote(Map<Long, Integer> cantidades) {
+        if (cantidades.isEmpty()) {
+            return;
+        }
+        StringBuilder casos = new StringBuilder("CASE id");
+        MapSqlParameterSource parametros = new MapSqlParameterSource();
+        int i = 0;
+        for (Map.Entry<Long, Integer> entrada : cantidades.entrySet()) {
+            casos.append(" WHEN :id").append(i).append(" THEN :cantidad").append(i);
+            parametros.addValue("id" + i, entrada.getKey());
+            parametros.addValue("cantidad" + i, entrada.getValue());
+            i++;
+        }
+        casos.append(" END");
+        parametros.addValue("ids", cantidades.keySet());
+
+        String sql = "UPDATE productos SET cantidad_disponible = cantidad_disponible - " + casos
+                + " WHERE id IN (:ids) AND cantidad_disponible >= " + casos;
+        if (jdbcTemplate.update(sql, parametros) != cantidades.size()) {
+            throw new CustomValidationException("Stock insuficiente para uno o más productos del carrito");
+        }
+        marcarCatalogoModificado(List.copyOf(cantidades.keySet()));
+    }
+
+    @Override
+    public long getCatalogVersion() {
+        return sincronizacion.getVersion();
+    }
+
+    private Producto findByIdForUpdate(Long id) {
+        return productoRepository.findByIdForUpdate(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Producto no encontrado con id: " + id));
+    }
+
+    // En productos con inventario en memoria el contador recibe la misma diferencia una vez confirmada
+    private void trasladarCambioDeStock(Long id, Integer anterior, Integer nuevo) {
+        if (!inventarioCaliente.esCaliente(id) || anterior == null || nuevo == null) {
+            return;
+        }
+        long diferencia = (long) nuevo - anterior;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    inventarioCaliente.ajustarStock(id, diferencia);
+                }
+            });
+        } else {
+            inventarioCaliente.ajustarStock(id, diferencia);
+        }
+    }
+
+    private void marcarCatalogoModificado(Collection<Long> ids) {
+        eventPublisher.publishEvent(new ProductosModificadosEvent(ids));
+    }
+
+    // Llega tras el commit, propio o de otra instancia, para que ningún lector asocie la versión nueva a datos viejos
+    @EventListener
+    public void onCatalogoModificado(CatalogoModificadoEvent event) {
+        event.productoIds().forEach(id -> {
+            generaciones.merge(id, 1L, Long::sum);
+            productos.invalidate(id);
+        });
+        paginas.clear();
+    }
+
+    private PageResponse<ProductoResponse> paginaEnCache(String clave, Supplier<PageResponse<ProductoResponse>> loader) {
+        long version = sincronizacion.getVersion();
+        String claveVersionada = version + ":" + clave;
+        PageResponse<ProductoResponse> pagina = paginas.get(claveVersionada);
+        if (pagina == null) {
+            pagina = loader.get();
+            if (sincronizacion.getVersion() == version) {
+                paginas.put(claveVersionada, pagina, System.currentTimeMillis() + ttlMillis);
+            }
+        }
+        return pagina;
+    }
+
+    private record ProductoEnCache(long generacion, ProductoResponse producto) {
+    }
+
+    private static void registrarMetricas(MeterRegistry registry, String nombre, LruCache<?, ?> cache) {
+        FunctionCounter.builder("catalog.cache.hits", cache, LruCache::hits).tag("cache", nombre).register(registry);
+        FunctionCounter.builder("catalog.cache.misses", cache, LruCache::misses).tag("cache", nombre).register(registry);
+        FunctionCounter.builder("catalog.cache.evictions", cache, LruCache::evictions).tag("cache", nombre).register(registry);
+        Gauge.builder("catalog.cache.size", cache, LruCache::size).tag("cache", nombre).register(registry);
     }
 
     @Override
     public List<Producto> findByNombreCategoria(String nombreCategoria) {
-        return List.of();
+        return categoriaService.findByNombre(nombreCategoria)
+                .map(categoria -> productoRepository.findByCategoriaId(categoria.id()))
+                .orElse(List.of());
     }
 
+    // El nombre se resuelve a id con el diccionario y la consulta filtra por categoria_id
     @Override
-    public Page<Producto> findByCategoria(String category, Integer page, Integer size) {
+    public PageResponse<ProductoResponse> findByCategoria(String category, Integer page, Integer size) {
         Pageable pageable = PageRequest.of(page, size);
-        return productoRepository.findByCategoriaNombre(category, pageable);
+        Optional<CategoriaResponse> categoria = categoriaService.findByNombre(category);
+        if (categoria.isEmpty()) {
+            return new PageResponse<>(List.of(), page, size, 0, 0);
+        }
+        Long categoriaId = categoria.get().id();
+        return paginaEnCache("categoria:" + categoriaId + ":" + page + ":" + size,
+                () -> PageResponse.from(productoRepository.findResponsesByCategoriaId(categoriaId, pageable)));
     }
 
 }
@@ -0,0 +1,169 @@
+package com.deportes.api.service.impl;
+
+import com.deportes.api.event.CatalogoModificadoEvent;
+import com.deportes.api.event.ProductosModificadosEvent;
+import com.deportes.api.service.SincronizacionCatalogoService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Mantiene las vistas en memoria del catálogo (búsqueda, sugerencias, facetas, cachés de productos) al día
+// con la base compartida, incluidos los cambios de otras instancias de la API. Cada producto lleva la marca
+// actualizado_en que pone la base y los borrados quedan en productos_eliminados; se consulta lo modificado
+// desde la última marca vista y se publica CatalogoModificadoEvent con esos ids.
+//
+// Corre tras cada commit local, así los cambios propios se ven enseguida, y cada cierto intervalo para
+// recoger los de las demás instancias. La marca la asigna la sentencia y no el commit, así que una
+// transacción que confirma tarde puede traer una marca anterior a la ya vista: la consulta vuelve un
+// margen hacia atrás y solo publica los ids cuya marca no se había visto todavía.
+//
+// La versión del catálogo, que usan los ETag y las cachés, es la marca más nueva ya aplicada, en
+// microsegundos: sale de la base y no del proceso, así todas las instancias que vieron los mismos cambios
+// responden con el mismo ETag. Se actualiza después de publicar el evento, cuando las vistas ya están al día
+@Slf4j
+@Service
+public class SincronizacionCatalogoServiceImpl implements SincronizacionCatalogoService {
+    private static final String CAMBIOS_SQL = """
+            SELECT id, actualizado_en FROM productos WHERE actualizado_en >= :desde
+            UNION ALL
+            SELECT producto_id, eliminado_en FROM productos_eliminados WHERE eliminado_en >= :desde
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final long intervaloMillis;
+    private final Duration margen;
+
+    // Cada pedido toma un número; una pasada que empezó después de ese número ya incluye su commit
+    private final AtomicLong pedidos = new AtomicLong();
+
+    // Estado de la sincronización, solo se toca con el lock tomado
+    private long atendidos;
+    private LocalDateTime ultimaMarca;
+    private final Map<Long, LocalDateTime> vistos = new HashMap<>();
+
+    private volatile long version;
+
+    private ScheduledExecutorService sincronizador;
+
+    public SincronizacionCatalogoServiceImpl(NamedParameterJdbcTemplate jdbcTemplate,
+                                             ApplicationEventPublisher eventPublisher,
+                                             @Value("${app.catalog.sync.interval-ms}") long intervaloMillis,
+                                             @Value("${app.catalog.sync.margin-ms}") long margenMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+        this.intervaloMillis = intervaloMillis;
+        this.margen = Duration.ofMillis(margenMillis);
+    }
+
+    // Las vistas se cargan completas al arrancar el proceso; se empieza por lo modificado desde entonces
+    // para no depender del orden en que Spring crea los beans. La hora sale de la base, que es quien pone las marcas
+    @PostConstruct
+    void init() {
+        LocalDateTime ahora = jdbcTemplate.getJdbcTemplate().queryForObject("SELECT NOW(6)", LocalDateTime.class);
+        ultimaMarca = ahora.minus(Duration.ofMillis(ManagementFactory.getRuntimeMXBean().getUptime()));
+        // Hasta el primer cambio posterior al arranque las vistas pueden tener algo más nuevo que cualquier
+        // marca aplicada; la hora de arranque no coincide con la versión de ninguna otra instancia
+        version = micros(ahora);
+
+        sincronizador = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "catalogo-sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sincronizador.scheduleWithFixedDelay(this::sincronizarSinFallar, intervaloMillis, intervaloMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (sincronizador != null) {
+            sincronizador.shutdownNow();
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductosModificados(ProductosModificadosEvent event) {
+        sincronizar();
+    }
+
+    // Al volver, todo lo confirmado antes de la llamada ya está publicado. Los commits concurrentes
+    // esperan una sola pasada en lugar de consultar cada uno
+    @Override
+    public void sincronizar() {
+        long pedido = pedidos.incrementAndGet();
+        synchronized (this) {
+            if (atendidos >= pedido) {
+                return;
+            }
+            atendidos = pedidos.get();
+            publicarCambios();
+        }
+    }
+
+    @Override
+    public long getVersion() {
+        return version;
+    }
+
+    private void sincronizarSinFallar() {
+        try {
+            sincronizar();
+        } catch (RuntimeException e) {
+            log.error("No se pudo sincronizar el catálogo con la base", e);
+        }
+    }
+
+    private void publicarCambios() {
+        LocalDateTime desde = ultimaMarca.minus(margen);
+        Map<Long, LocalDateTime> marcas = new HashMap<>();
+        jdbcTemplate.query(CAMBIOS_SQL, new MapSqlParameterSource("desde", desde), rs -> {
+            marcas.merge(rs.getLong(1), rs.getObject(2, LocalDateTime.class),
+                    (a, b) -> a.isAfter(b) ? a : b);
+        });
+
+        Set<Long> modificados = new HashSet<>();
+        marcas.forEach((id, marca) -> {
+            LocalDateTime vista = vistos.get(id);
+            if (vista == null || marca.isAfter(vista)) {
+                vistos.put(id, marca);
+                modificados.add(id);
+            }
+            if (marca.isAfter(ultimaMarca)) {
+                ultimaMarca = marca;
+            }
+        });
+        // Lo anterior al margen ya no vuelve en la consulta, no hace falta recordarlo
+        LocalDateTime limite = ultimaMarca.minus(margen);
+        vistos.values().removeIf(marca -> marca.isBefore(limite));
+
+        if (!modificados.isEmpty()) {
+            eventPublisher.publishEvent(new CatalogoModificadoEvent(modificados));
+            // Un commit tardío trae una marca ya superada, pero los datos cambiaron y el ETag también debe cambiar
+            version = Math.max(micros(ultimaMarca), version + 1);
+        }
+    }
+
+    private static long micros(LocalDateTime marca) {
+        return marca.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + marca.getNano() / 1_000;
+    }
+}
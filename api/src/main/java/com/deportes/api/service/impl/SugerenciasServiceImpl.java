@@ -0,0 +1,263 @@
+package com.deportes.api.service.impl;
+
+import com.deportes.api.event.CatalogoModificadoEvent;
+import com.deportes.api.exception.CustomValidationException;
+import com.deportes.api.records.ProductoResponse;
+import com.deportes.api.records.SugerenciaResponse;
+import com.deportes.api.records.VentaProductoResponse;
+import com.deportes.api.repository.ProductoRepository;
+import com.deportes.api.repository.VentaProductoDiariaRepository;
+import com.deportes.api.service.SugerenciasService;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Autocompletado con un trie de descripciones de productos y nombres de categoría. Cada frase se inserta
+// también desde cada una de sus palabras, así "fut" sugiere "Pelota de fútbol". Cada nodo guarda ya
+// calculadas las k sugerencias más vendidas de su subárbol, una consulta solo recorre el prefijo.
+// Los cambios de productos y de ventas se aplican por entrada al confirmarse
+@Service
+@Slf4j
+public class SugerenciasServiceImpl implements SugerenciasService {
+    private static final Comparator<Entrada> POR_POPULARIDAD = Comparator.comparingLong(Entrada::peso).reversed()
+            .thenComparing(Entrada::texto);
+
+    private final ProductoRepository productoRepository;
+    private final VentaProductoDiariaRepository ventaRepository;
+    private final int topK;
+
+    private final Nodo raiz = new Nodo();
+
+    // Estado de escritura, solo se toca dentro de los métodos synchronized
+    private final Map<Long, Entrada> productos = new HashMap<>();
+    private final Map<Long, String> categoriaDeProducto = new HashMap<>();
+    private final Map<String, Entrada> categorias = new HashMap<>();
+    private final Map<String, Integer> productosPorCategoria = new HashMap<>();
+
+    private final ActualizacionesCatalogo actualizaciones = new ActualizacionesCatalogo(this::aplicar);
+
+    public SugerenciasServiceImpl(ProductoRepository productoRepository,
+                                  VentaProductoDiariaRepository ventaRepository,
+                                  @Value("${app.catalog.suggest.top-k}") int topK) {
+        this.productoRepository = productoRepository;
+        this.ventaRepository = ventaRepository;
+        this.topK = topK;
+    }
+
+    @PostConstruct
+    void init() {
+        Map<Long, Long> unidades = unidadesPorProducto(ventaRepository.findTotales());
+        List<ProductoResponse> todos = productoRepository.findAllResponses();
+        todos.forEach(producto -> actualizar(producto.id(), producto, unidades.getOrDefault(producto.id(), 0L)));
+        log.info("Sugerencias cargadas con {} productos y {} categorías", productos.size(), categorias.size());
+    }
+
+    @Override
+    public List<SugerenciaResponse> sugerir(String prefijo, int limite) {
+        if (limite < 1) {
+            throw new CustomValidationException("El límite debe ser positivo");
+        }
+        String clave = TextoBusqueda.normalizar(prefijo);
+        if (clave.isEmpty()) {
+            return List.of();
+        }
+        Nodo nodo = raiz;
+        for (int i = 0; i < clave.length() && nodo != null; i++) {
+            nodo = nodo.hijo(clave.charAt(i));
+        }
+        if (nodo == null) {
+            return List.of();
+        }
+        return Arrays.stream(nodo.top)
+                .limit(limite)
+                .map(entrada -> new SugerenciaResponse(entrada.texto(), entrada.productoId()))
+                .toList();
+    }
+
+    // Corre antes que el cambio de versión del catálogo para que el ETag nuevo no acompañe sugerencias viejas
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener
+    public void onCatalogoModificado(CatalogoModificadoEvent event) {
+        actualizaciones.modificados(event.productoIds());
+    }
+
+    // Se llama con el lock de actualizaciones tomado: productos y ventas se leen y se aplican sin que otro
+    // escritor intercale una lectura más vieja entre medio
+    private void aplicar(Set<Long> ids) {
+        Map<Long, ProductoResponse> modificados = productoRepository.findResponsesByIdIn(ids).stream()
+                .collect(Collectors.toMap(ProductoResponse::id, Function.identity()));
+        Map<Long, Long> unidades = unidadesPorProducto(ventaRepository.findTotalesByProductoIdIn(ids));
+        for (Long id : ids) {
+            actualizar(id, modificados.get(id), unidades.getOrDefault(id, 0L));
+        }
+    }
+
+    // producto es null si ya no existe. Los productos sin stock no se sugieren, igual que en la búsqueda
+    private synchronized void actualizar(Long id, ProductoResponse producto, long unidades) {
+        boolean sugerible = producto != null && producto.cantidadDisponible() != null && producto.cantidadDisponible() > 0;
+        Entrada nueva = sugerible ? new Entrada("p" + id, producto.descripcion(), id, unidades) : null;
+        Entrada anterior = nueva == null ? productos.remove(id) : productos.put(id, nueva);
+        reemplazar(anterior, nueva);
+
+        String categoriaAnterior = categoriaDeProducto.remove(id);
+        String categoriaNueva = nueva != null && producto.categoria() != null ? producto.categoria().nombre() : null;
+        if (categoriaNueva != null) {
+            categoriaDeProducto.put(id, categoriaNueva);
+        }
+        long pesoAnterior = anterior == null ? 0 : anterior.peso();
+        long pesoNuevo = nueva == null ? 0 : nueva.peso();
+        if (Objects.equals(categoriaAnterior, categoriaNueva)) {
+            if (categoriaNueva != null && pesoAnterior != pesoNuevo) {
+                cambiarCategoria(categoriaNueva, pesoNuevo - pesoAnterior, 0);
+            }
+            return;
+        }
+        if (categoriaAnterior != null) {
+            cambiarCategoria(categoriaAnterior, -pesoAnterior, -1);
+        }
+        if (categoriaNueva != null) {
+            cambiarCategoria(categoriaNueva, pesoNuevo, 1);
+        }
+    }
+
+    // Una categoría pesa lo que suman sus productos y desaparece con el último de ellos
+    private void cambiarCategoria(String categoria, long diferenciaPeso, int diferenciaProductos) {
+        int cantidad = productosPorCategoria.merge(categoria, diferenciaProductos, Integer::sum);
+        Entrada anterior = categorias.get(categoria);
+        Entrada nueva = null;
+        if (cantidad <= 0) {
+            productosPorCategoria.remove(categoria);
+            categorias.remove(categoria);
+        } else {
+            nueva = new Entrada("c" + categoria, categoria, null, (anterior == null ? 0 : anterior.peso()) + diferenciaPeso);
+            categorias.put(categoria, nueva);
+        }
+        reemplazar(anterior, nueva);
+    }
+
+    // Cambia una entrada por su versión nueva (o la quita si nueva es null). En las claves que se mantienen
+    // el reemplazo es en el lugar y cada nodo publica su top nuevo de una vez: un lector ve la entrada vieja
+    // o la nueva, nunca un hueco entre quitar e insertar. Los nodos que quedan vacíos se conservan; con un
+    // catálogo que cambia poco no vale la pena podarlos
+    private void reemplazar(Entrada anterior, Entrada nueva) {
+        if (anterior == null && nueva == null) {
+            return;
+        }
+        String id = nueva != null ? nueva.id() : anterior.id();
+        Set<String> clavesNuevas = nueva == null ? Set.of() : claves(nueva.texto());
+        Set<String> todas = new LinkedHashSet<>(clavesNuevas);
+        if (anterior != null) {
+            todas.addAll(claves(anterior.texto()));
+        }
+        for (String clave : todas) {
+            boolean queda = clavesNuevas.contains(clave);
+            List<Nodo> camino = new ArrayList<>(clave.length() + 1);
+            Nodo nodo = raiz;
+            camino.add(nodo);
+            for (int i = 0; i < clave.length() && nodo != null; i++) {
+                nodo = queda ? nodo.hijoOCrear(clave.charAt(i)) : nodo.hijo(clave.charAt(i));
+                camino.add(nodo);
+            }
+            if (nodo == null) {
+                continue;
+            }
+            nodo.terminales.removeIf(terminal -> terminal.id().equals(id));
+            if (queda) {
+                nodo.terminales.add(nueva);
+            }
+            recalcular(camino);
+        }
+    }
+
+    // De la hoja a la raíz: el top de un nodo sale de sus entradas propias y del top de cada hijo
+    private void recalcular(List<Nodo> camino) {
+        for (int i = camino.size() - 1; i >= 0; i--) {
+            Nodo nodo = camino.get(i);
+            Map<String, Entrada> candidatas = new LinkedHashMap<>();
+            nodo.terminales.forEach(entrada -> candidatas.putIfAbsent(entrada.id(), entrada));
+            for (Nodo hijo : nodo.hijos.nodos()) {
+                for (Entrada entrada : hijo.top) {
+                    candidatas.putIfAbsent(entrada.id(), entrada);
+                }
+            }
+            nodo.top = candidatas.values().stream()
+                    .sorted(POR_POPULARIDAD)
+                    .limit(topK)
+                    .toArray(Entrada[]::new);
+        }
+    }
+
+    // La frase completa y cada sufijo que empieza en una palabra
+    private static Set<String> claves(String texto) {
+        List<String> palabras = TextoBusqueda.tokenizar(texto);
+        Set<String> claves = new LinkedHashSet<>();
+        for (int i = 0; i < palabras.size(); i++) {
+            claves.add(String.join(" ", palabras.subList(i, palabras.size())));
+        }
+        return claves;
+    }
+
+    private static Map<Long, Long> unidadesPorProducto(List<VentaProductoResponse> totales) {
+        return totales.stream().collect(Collectors.toMap(VentaProductoResponse::productoId, VentaProductoResponse::unidades));
+    }
+
+    private record Entrada(String id, String texto, Long productoId, long peso) {
+    }
+
+    private record Hijos(char[] letras, Nodo[] nodos) {
+    }
+
+    // Los hijos van en arreglos ordenados en lugar de mapas para ocupar poco por nodo. Los lectores no
+    // bloquean: leen las referencias volatile, que el escritor reemplaza por arreglos nuevos
+    private static final class Nodo {
+        private static final Hijos SIN_HIJOS = new Hijos(new char[0], new Nodo[0]);
+        private static final Entrada[] SIN_ENTRADAS = new Entrada[0];
+
+        private volatile Hijos hijos = SIN_HIJOS;
+        private volatile Entrada[] top = SIN_ENTRADAS;
+        private final List<Entrada> terminales = new ArrayList<>(1);
+
+        Nodo hijo(char letra) {
+            Hijos actuales = hijos;
+            int i = Arrays.binarySearch(actuales.letras(), letra);
+            return i < 0 ? null : actuales.nodos()[i];
+        }
+
+        Nodo hijoOCrear(char letra) {
+            Hijos actuales = hijos;
+            int i = Arrays.binarySearch(actuales.letras(), letra);
+            if (i >= 0) {
+                return actuales.nodos()[i];
+            }
+            int posicion = -i - 1;
+            int total = actuales.letras().length;
+            char[] letras = new char[total + 1];
+            Nodo[] nodos = new Nodo[total + 1];
+            System.arraycopy(actuales.letras(), 0, letras, 0, posicion);
+            System.arraycopy(actuales.nodos(), 0, nodos, 0, posicion);
+            letras[posicion] = letra;
+            nodos[posicion] = new Nodo();
+            System.arraycopy(actuales.letras(), posicion, letras, posicion + 1, total - posicion);
+            System.arraycopy(actuales.nodos(), posicion, nodos, posicion + 1, total - posicion);
+            hijos = new Hijos(letras, nodos);
+            return nodos[posicion];
+        }
+    }
+}
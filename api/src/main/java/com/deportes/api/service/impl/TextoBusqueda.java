@@ -0,0 +1,30 @@
+package com.deportes.api.service.impl;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+// Normalización compartida por el índice de búsqueda y las sugerencias: sin acentos, en minúsculas
+// y partido en palabras alfanuméricas
+final class TextoBusqueda {
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARADORES = Pattern.compile("[^\\p{Alnum}]+");
+
+    private TextoBusqueda() {
+    }
+
+    static List<String> tokenizar(String texto) {
+        if (texto == null) {
+            return List.of();
+        }
+        String normalizado = MARCAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        return Arrays.stream(SEPARADORES.split(normalizado)).filter(termino -> !termino.isEmpty()).toList();
+    }
+
+    static String normalizar(String texto) {
+        return String.join(" ", tokenizar(texto));
+    }
+}
@@ -1,5 +1,6 @@
 package com.deportes.api.service.impl;
 
+import com.deportes.api.config.AuthUser;
 import com.deportes.api.entity.Carrito;
 import com.deportes.api.entity.Usuario;
 import com.deportes.api.exception.CustomValidationException;
@@ -10,6 +11,7 @@ import com.deportes.api.service.UserService;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.rest.webmvc.ResourceNotFoundException;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -138,11 +140,24 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public Usuario getMe() {
-        String email = SecurityContextHolder.getContext().getAuthentication().getName();
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication.getPrincipal() instanceof AuthUser authUser) {
+            return findById(authUser.id());
+        }
+        String email = authentication.getName();
         return this.usuarioRepository.findByEmail(email)
                 .orElseThrow(() -> new ResourceNotFoundException("Usuario no encontrado con email: " + email));
     }
 
+    @Override
+    public Long getMeId() {
+        // El id viaja en el token, no hace falta consultar la tabla de usuarios
+        if (SecurityContextHolder.getContext().getAuthentication().getPrincipal() instanceof AuthUser authUser) {
+            return authUser.id();
+        }
+        return getMe().getId();
+    }
+
     @Override
     public void updateMe(UserRequest userRequest) {
         Usuario usuario = getMe();
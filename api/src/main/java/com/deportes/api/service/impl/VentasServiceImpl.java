@@ -0,0 +1,97 @@
+package com.deportes.api.service.impl;
+
+import com.deportes.api.config.LruCache;
+import com.deportes.api.exception.CustomValidationException;
+import com.deportes.api.records.VentaProducto;
+import com.deportes.api.records.VentaProductoResponse;
+import com.deportes.api.repository.VentaProductoDiariaRepository;
+import com.deportes.api.service.VentasService;
+import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+// Los reportes de ventas leen el acumulado diario por producto, que crece con productos × días y no
+// con la cantidad de órdenes. Las lecturas pasan además por una cache corta
+@Service
+public class VentasServiceImpl implements VentasService {
+    private static final String UPSERT_VENTA_SQL = """
+            INSERT INTO ventas_producto_diarias (producto_id, fecha, unidades, importe)
+            VALUES (:productoId, :fecha, :unidades, :importe)
+            ON DUPLICATE KEY UPDATE unidades = unidades + VALUES(unidades), importe = importe + VALUES(importe)
+            """;
+
+    private final VentaProductoDiariaRepository ventaRepository;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final LruCache<String, List<VentaProductoResponse>> topVendidos = new LruCache<>(256);
+    private final LruCache<Long, VentaProductoResponse> totales = new LruCache<>(1024);
+    private final long ttlMillis;
+
+    public VentasServiceImpl(VentaProductoDiariaRepository ventaRepository,
+                             NamedParameterJdbcTemplate jdbcTemplate,
+                             @Value("${app.sales.cache-seconds}") long cacheSegundos) {
+        this.ventaRepository = ventaRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.ttlMillis = cacheSegundos * 1000;
+    }
+
+    // Se ordena por producto para que dos checkouts concurrentes bloqueen las filas en el mismo orden
+    @Transactional
+    public void registrarVentas(LocalDate fecha, Collection<VentaProducto> ventas) {
+        if (ventas.isEmpty()) {
+            return;
+        }
+        SqlParameterSource[] filas = ventas.stream()
+                .sorted(Comparator.comparing(VentaProducto::productoId))
+                .map(venta -> new MapSqlParameterSource()
+                        .addValue("productoId", venta.productoId())
+                        .addValue("fecha", fecha)
+                        .addValue("unidades", venta.unidades())
+                        .addValue("importe", venta.importe()))
+                .toArray(SqlParameterSource[]::new);
+        jdbcTemplate.batchUpdate(UPSERT_VENTA_SQL, filas);
+    }
+
+    @Transactional
+    public List<VentaProductoResponse> findTopVendidos(int limite, int dias) {
+        if (limite < 1 || limite > 100 || dias < 1) {
+            throw new CustomValidationException("El límite debe estar entre 1 y 100 y los días deben ser positivos");
+        }
+        String clave = limite + ":" + dias;
+        List<VentaProductoResponse> top = topVendidos.get(clave);
+        if (top == null) {
+            top = ventaRepository.findTopVendidos(LocalDate.now().minusDays(dias - 1L), Limit.of(limite));
+            topVendidos.put(clave, top, System.currentTimeMillis() + ttlMillis);
+        }
+        return top;
+    }
+
+    @Transactional
+    public VentaProductoResponse findTotalByProductoId(Long productoId) {
+        VentaProductoResponse total = totales.get(productoId);
+        if (total == null) {
+            total = ventaRepository.findTotalByProductoId(productoId)
+                    .orElseGet(() -> new VentaProductoResponse(productoId, null, 0L, BigDecimal.ZERO));
+            totales.put(productoId, total, System.currentTimeMillis() + ttlMillis);
+        }
+        return total;
+    }
+
+    @Transactional
+    public int reconstruir() {
+        ventaRepository.deleteAllRows();
+        int filas = ventaRepository.insertFromItemsOrden();
+        topVendidos.clear();
+        totales.clear();
+        return filas;
+    }
+}
@@ -0,0 +1,69 @@
+package com.deportes.api.config;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+// Costo de tryAcquire con muchos hilos a la vez, para comprobar que el limitador no es un punto de
+// contención delante de login y register. Se compara una clave distinta por hilo (el caso normal, IPs
+// distintas) contra todos los hilos sobre la misma clave (el peor caso, un solo cliente o el cupo
+// compartido de cuerpos sin email). Los cupos son enormes para medir la ruta que concede el token.
+//
+// Se ejecuta con: mvn test-compile exec:java -Dexec.classpathScope=test
+//     -Dexec.mainClass=com.deportes.api.config.RateLimiterBenchmark
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(16)
+public class RateLimiterBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Limitador {
+        RateLimiter limiter;
+
+        @Setup
+        public void setup() {
+            limiter = new RateLimiter(Integer.MAX_VALUE, Integer.MAX_VALUE);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cliente {
+        String clave;
+
+        @Setup
+        public void setup(ThreadParams params) {
+            clave = "10.0.0." + params.getThreadIndex();
+        }
+    }
+
+    @Benchmark
+    public long clavesDistintas(Limitador limitador, Cliente cliente) {
+        return limitador.limiter.tryAcquire(cliente.clave);
+    }
+
+    @Benchmark
+    public long mismaClave(Limitador limitador) {
+        return limitador.limiter.tryAcquire("10.0.0.1");
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(RateLimiterBenchmark.class.getSimpleName()).build()).run();
+    }
+}
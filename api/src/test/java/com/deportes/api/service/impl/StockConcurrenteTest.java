@@ -0,0 +1,113 @@
+package com.deportes.api.service.impl;
+
+import com.deportes.api.entity.Producto;
+import com.deportes.api.exception.CustomValidationException;
+import com.deportes.api.repository.ProductoRepository;
+import com.deportes.api.service.ProductoService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.testcontainers.containers.MariaDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Muchas compras simultáneas contra la misma fila: el descuento condicional debe vender exactamente el
+// stock que había, ni una unidad más. Corre contra MariaDB real porque lo que se prueba es el bloqueo de fila
+@SpringBootTest
+@Testcontainers
+class StockConcurrenteTest {
+    private static final int HILOS = 16;
+    private static final int COMPRAS = 200;
+    private static final int STOCK = 50;
+
+    @Container
+    @ServiceConnection
+    static MariaDBContainer<?> mariadb = new MariaDBContainer<>("mariadb:11.4");
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private ProductoService productoService;
+
+    @Test
+    void reducirStockSiDisponibleNoVendeMasQueElStock() throws Exception {
+        Long id = crearProducto(STOCK);
+
+        int vendidas = comprarEnParalelo(() -> productoRepository.reducirStockSiDisponible(id, 1) == 1);
+
+        assertThat(vendidas).isEqualTo(STOCK);
+        assertThat(stock(id)).isZero();
+    }
+
+    // Cada compra lleva dos productos y solo uno se agota: las que fallan no deben descontar el otro
+    @Test
+    void reducirStockEnLoteNoVendeMasQueElStock() throws Exception {
+        Long escaso = crearProducto(STOCK);
+        Long abundante = crearProducto(COMPRAS * 2);
+
+        int vendidas = comprarEnParalelo(() -> {
+            try {
+                productoService.reducirStockEnLote(Map.of(escaso, 1, abundante, 2));
+                return true;
+            } catch (CustomValidationException e) {
+                return false;
+            }
+        });
+
+        assertThat(vendidas).isEqualTo(STOCK);
+        assertThat(stock(escaso)).isZero();
+        assertThat(stock(abundante)).isEqualTo(COMPRAS * 2 - STOCK * 2);
+    }
+
+    // Todas las compras arrancan juntas para maximizar la contención sobre la fila
+    private int comprarEnParalelo(Callable<Boolean> compra) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(HILOS);
+        CountDownLatch largada = new CountDownLatch(1);
+        try {
+            List<Future<Boolean>> resultados = new ArrayList<>();
+            for (int i = 0; i < COMPRAS; i++) {
+                resultados.add(executor.submit(() -> {
+                    largada.await();
+                    return compra.call();
+                }));
+            }
+            largada.countDown();
+            int vendidas = 0;
+            for (Future<Boolean> resultado : resultados) {
+                if (resultado.get()) {
+                    vendidas++;
+                }
+            }
+            return vendidas;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Long crearProducto(int stock) {
+        Producto producto = new Producto();
+        producto.setDescripcion("Producto de prueba");
+        producto.setMonto(new BigDecimal("10.00"));
+        producto.setCantidadDisponible(stock);
+        producto.setRutaImagen("/img/prueba.png");
+        return productoRepository.save(producto).getId();
+    }
+
+    private int stock(Long id) {
+        return productoRepository.findById(id).orElseThrow().getCantidadDisponible();
+    }
+}
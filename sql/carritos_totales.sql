@@ -0,0 +1,6 @@
+-- Inicializa los contadores de carritos creados antes de mantenerlos en cada modificación
+UPDATE carritos c
+SET c.item_count = (SELECT COALESCE(SUM(i.cantidad), 0) FROM items_carrito i WHERE i.carrito_id = c.id),
+    c.total = (SELECT COALESCE(SUM(i.cantidad * i.precio_unitario), 0) FROM items_carrito i WHERE i.carrito_id = c.id),
+    c.version = c.version + 1;
+COMMIT;
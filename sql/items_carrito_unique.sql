@@ -0,0 +1,14 @@
+-- Consolida productos repetidos en un mismo carrito antes de crear la restricción única
+UPDATE items_carrito i
+JOIN (SELECT MIN(id) AS id, SUM(cantidad) AS cantidad
+      FROM items_carrito
+      GROUP BY carrito_id, producto_id
+      HAVING COUNT(*) > 1) d ON d.id = i.id
+SET i.cantidad = d.cantidad;
+
+DELETE i FROM items_carrito i
+JOIN items_carrito k ON k.carrito_id = i.carrito_id AND k.producto_id = i.producto_id AND k.id < i.id;
+
+ALTER TABLE items_carrito
+    ADD CONSTRAINT uk_items_carrito_carrito_producto UNIQUE (carrito_id, producto_id);
+COMMIT;
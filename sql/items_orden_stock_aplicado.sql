@@ -0,0 +1,4 @@
+-- Marca los items de orden existentes como ya descontados de productos antes de activar el inventario en memoria
+ALTER TABLE items_orden ADD COLUMN IF NOT EXISTS stock_aplicado BOOLEAN NOT NULL DEFAULT TRUE;
+CREATE INDEX IF NOT EXISTS idx_items_orden_stock_aplicado ON items_orden (stock_aplicado, producto_id);
+COMMIT;
@@ -0,0 +1,5 @@
+-- Antes de crear el índice único se listan los números de orden repetidos, que deben corregirse a mano
+SELECT numero_orden, COUNT(*) FROM ordenes GROUP BY numero_orden HAVING COUNT(*) > 1;
+
+ALTER TABLE ordenes ADD CONSTRAINT uk_ordenes_numero_orden UNIQUE (numero_orden);
+COMMIT;
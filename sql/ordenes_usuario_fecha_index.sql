@@ -0,0 +1,3 @@
+-- Índice para el historial de órdenes por usuario ordenado por fecha, usado por la paginación por cursor
+CREATE INDEX IF NOT EXISTS idx_ordenes_usuario_fecha_id ON ordenes (usuario_id, fecha_creacion, id);
+COMMIT;
@@ -0,0 +1,12 @@
+-- Marca de última modificación de cada producto, la usan las instancias de la API para sincronizar sus
+-- índices en memoria con los cambios hechos por las demás. La base la actualiza sola en cada UPDATE
+ALTER TABLE productos ADD COLUMN IF NOT EXISTS actualizado_en DATETIME(6) NOT NULL
+    DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6);
+CREATE INDEX IF NOT EXISTS idx_productos_actualizado_en ON productos (actualizado_en);
+CREATE TABLE IF NOT EXISTS productos_eliminados (
+    id BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    producto_id BIGINT NOT NULL,
+    eliminado_en DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6)
+);
+CREATE INDEX IF NOT EXISTS idx_productos_eliminados_eliminado_en ON productos_eliminados (eliminado_en);
+COMMIT;
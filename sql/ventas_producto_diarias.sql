@@ -0,0 +1,10 @@
+-- Carga inicial del acumulado diario de ventas a partir de las órdenes existentes.
+-- Equivale a POST /admin/sales/rebuild; los items de inventario en memoria pendientes los suma la API al aplicarlos
+DELETE FROM ventas_producto_diarias;
+INSERT INTO ventas_producto_diarias (producto_id, fecha, unidades, importe)
+SELECT i.producto_id, DATE(o.fecha_creacion), SUM(i.cantidad), SUM(i.cantidad * i.precio_unitario)
+FROM items_orden i
+JOIN ordenes o ON o.id = i.orden_id
+WHERE i.stock_aplicado = TRUE
+GROUP BY i.producto_id, DATE(o.fecha_creacion);
+COMMIT;